@@ -1,5 +1,7 @@
 package event;
 
+import java.util.Random;
+
 public class ActivityEvent extends Event {
 	
 	int activity;
@@ -31,6 +33,37 @@ public class ActivityEvent extends Event {
         return event;
 	}	
 	
+	/** 
+	 * Parse the line under the given cursor. 
+	 * Only the columns 1 (sec), 2 (person), 3 (heart rate) and 8 (activity) are decoded, all other columns are skipped.
+	 */
+	public static ActivityEvent parse (FieldCursor cursor) {
+		cursor.skip(1);
+		int sec = cursor.nextInt();
+		int pid = cursor.nextInt();
+		int hr = cursor.nextInt();
+		cursor.skip(4);
+		int a = cursor.nextInt();
+		return new ActivityEvent(sec,pid,a,hr);
+	}
+	
+	/** Random report of one person with one of the given number of activities and a heart rate from 60 to 159 */
+	public static ActivityEvent generate (int sec, int id, int keys, Random random) {
+		return new ActivityEvent(sec,101,random.nextInt(keys)+1,random.nextInt(100)+60);
+	}
+	
+	public int getKey () {
+		return activity;
+	}
+	
+	public long getPartitionKey () {
+		return ((long) id << 32) | (activity & 0xffffffffL);
+	}
+	
+	public double getValue () {
+		return heartRate;
+	}
+	
 	public boolean isCompatible (Event other) {
 		if (other instanceof ActivityEvent) {
 			ActivityEvent o = (ActivityEvent) other;
@@ -0,0 +1,95 @@
+package event;
+
+import java.util.Random;
+
+/**
+ * Size of the batches in which the driver advances its progress.
+ * random: 6 to 14 seconds, reproducible with a seed
+ * fixed: the given number of seconds
+ * count: the seconds until the given number of events is injected
+ * adaptive: starts at the given number of seconds, doubles while the scheduler lags behind by more than a batch
+ * 		and shrinks by a second while the scheduler keeps up, which trades throughput against latency
+ */
+public class BatchPolicy {
+
+	public static final int RANDOM = 0;
+	public static final int FIXED = 1;
+	public static final int COUNT = 2;
+	public static final int ADAPTIVE = 3;
+
+	public int kind;
+	// Seconds per batch, events per batch for the count policy
+	public int size;
+	// Bounds of random and adaptive batches in seconds
+	int min;
+	int max;
+	Random random;
+	// Number of batches and of their seconds
+	public int batches;
+	long seconds;
+
+	public BatchPolicy (int k, int s, long seed) {
+		kind = k;
+		size = Math.max(s, 1);
+		min = (kind == RANDOM) ? 6 : 1;
+		max = (kind == RANDOM) ? 14 : 64 * size;
+		random = (seed < 0) ? new Random() : new Random(seed);
+		batches = 0;
+		seconds = 0;
+	}
+
+	/** Policy given as random[:seed], fixed:seconds, count:events or adaptive:seconds */
+	public static BatchPolicy parse (String spec) {
+		String[] parameters = spec.split(":");
+		int value = (parameters.length > 1) ? Integer.parseInt(parameters[1]) : -1;
+		if (parameters[0].equals("fixed")) return new BatchPolicy(FIXED, (value > 0) ? value : 10, -1);
+		if (parameters[0].equals("count")) return new BatchPolicy(COUNT, (value > 0) ? value : 1000, -1);
+		if (parameters[0].equals("adaptive")) return new BatchPolicy(ADAPTIVE, (value > 0) ? value : 10, -1);
+		return new BatchPolicy(RANDOM, 10, value);
+	}
+
+	/*** End of the batch after the batch that ends at the given second ***/
+	public int getNextEnd (int end, EventQueue queue) {
+		int length;
+		if (kind == RANDOM) {
+			length = random.nextInt(max - min + 1) + min;
+		} else {
+		if (kind == COUNT) {
+			// The batch ends when it is full
+			length = Integer.MAX_VALUE;
+		} else {
+		if (kind == ADAPTIVE && queue != null) {
+			// The scheduler lags behind by the seconds of the events it has not taken from the queue
+			Event head = queue.peek();
+			int lag = (head == null) ? 0 : end - head.sec;
+			if (lag > size) {
+				size = Math.min(size * 2, max);
+			} else {
+			if (lag == 0) {
+				size = Math.max(size - 1, min);
+			}}
+			length = size;
+		} else {
+			length = size;
+		}}}
+		// Avoid an overflow for open ended batches
+		return (end > Integer.MAX_VALUE - length) ? Integer.MAX_VALUE : end + length;
+	}
+
+	/** Count policy: the batch with the given number of events is full */
+	public boolean isFull (long events) {
+		return kind == COUNT && events >= size;
+	}
+
+	/** The batch from the given start to the given end second is done */
+	public void done (int start, int end) {
+		batches++;
+		seconds += end - start + 1;
+	}
+
+	public String toString () {
+		String name = (kind == FIXED) ? "fixed " + size + " sec" : (kind == COUNT) ? "count " + size + " events" :
+			(kind == ADAPTIVE) ? "adaptive, now " + size + " sec" : "random " + min + " to " + max + " sec";
+		return name + ((batches > 0) ? ", " + batches + " batches of avg " + seconds / batches + " sec" : "");
+	}
+}
@@ -0,0 +1,68 @@
+package event;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read events from a file in the binary event format.
+ * Records are read in blocks and a whole block is decoded at once.
+ */
+public class BinaryFileSource implements EventSource {
+
+	static final int BLOCK_SIZE = 8192;
+
+	RandomAccessFile file;
+	FileChannel channel;
+	BinaryFormat format;
+	ByteBuffer block;
+	long remaining;
+	Event[] events;
+	int decoded;
+	int returned;
+
+	public BinaryFileSource (String filename, String type) throws IOException {
+		file = new RandomAccessFile(filename, "r");
+		format = BinaryFormat.readHeader(file);
+		if (!format.type.equals(type)) throw new IOException(filename + " contains " + format.type + " events and not " + type + " events");
+		if (!format.equals(BinaryFormat.getFormat(type))) throw new IOException(filename + " has an unexpected field layout");
+		format.readDictionary(file);
+		channel = file.getChannel();
+		channel.position(format.header_size);
+		block = ByteBuffer.allocateDirect(BLOCK_SIZE * format.record_size);
+		remaining = format.record_number;
+		events = new Event[BLOCK_SIZE];
+		decoded = 0;
+		returned = 0;
+	}
+
+	/*** Read and decode the next block of records ***/
+	void readBlock () throws IOException {
+		int records = (int) Math.min(BLOCK_SIZE, remaining);
+		block.clear();
+		block.limit(records * format.record_size);
+		while (block.hasRemaining()) {
+			if (channel.read(block) < 0) throw new IOException("Unexpected end of binary event file");
+		}
+		block.flip();
+		for (int i=0; i<records; i++) events[i] = format.decode(block);
+		remaining -= records;
+		decoded = records;
+		returned = 0;
+	}
+
+	public Event next () throws IOException {
+		if (returned == decoded) {
+			if (remaining == 0) return null;
+			readBlock();
+		}
+		Event event = events[returned];
+		events[returned++] = null;
+		return event;
+	}
+
+	public void close () throws IOException {
+		file.close();
+	}
+}
@@ -0,0 +1,221 @@
+package event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed-width binary event format.
+ *
+ * Header: magic, version, header size, event type, record size, field layout (kind and name per field),
+ * record number and offset of the string dictionary.
+ * Records: one fixed-width record per event. Integers take 4 bytes, doubles 8 bytes
+ * and strings are stored as 4 byte codes into the dictionary of their field.
+ * Dictionaries: the companies followed by the transaction types, each as number of strings
+ * followed by the strings in the order of their codes.
+ */
+public class BinaryFormat {
+
+	public static final int MAGIC = 0x43455442; // "CETB"
+	public static final int VERSION = 2;
+
+	public static final byte INT = 'I';
+	public static final byte DOUBLE = 'D';
+	public static final byte STRING = 'S';
+
+	public String type;
+	public byte[] kinds;
+	public String[] names;
+	public int record_size;
+	public long record_number;
+	public long dictionary_offset;
+	public int header_size;
+	// Codes of the dictionary strings in the symbol tables of the stock events
+	int[] company_codes;
+	int[] trtype_codes;
+
+	public BinaryFormat (String t, byte[] k, String[] n) {
+		type = t;
+		kinds = k;
+		names = n;
+		record_size = 0;
+		for (byte kind : kinds) record_size += (kind == DOUBLE) ? 8 : 4;
+		record_number = 0;
+		dictionary_offset = 0;
+	}
+
+	/*** Field layout of the given event type ***/
+	public static BinaryFormat getFormat (String type) {
+		BinaryFormat format;
+		if (type.equals("check")) {
+			format = new BinaryFormat(type, new byte[] {INT,INT,INT}, new String[] {"sec","id","compatibility"});
+		} else {
+		if (type.equals("activity")) {
+			format = new BinaryFormat(type, new byte[] {INT,INT,INT,INT}, new String[] {"sec","id","heartRate","activity"});
+		} else {
+		if (type.equals("stock")) {
+			format = new BinaryFormat(type, new byte[] {INT,INT,INT,STRING,DOUBLE,INT,STRING},
+					new String[] {"sec","id","sector","company","price","volume","trtype"});
+		} else {
+			format = null;
+			System.err.println("Unexpected event type");
+		}}}
+		return format;
+	}
+
+	public boolean equals (Object o) {
+		if (!(o instanceof BinaryFormat)) return false;
+		BinaryFormat other = (BinaryFormat) o;
+		if (!this.type.equals(other.type) || this.kinds.length != other.kinds.length) return false;
+		for (int i=0; i<kinds.length; i++) {
+			if (this.kinds[i] != other.kinds[i] || !this.names[i].equals(other.names[i])) return false;
+		}
+		return true;
+	}
+
+	public int hashCode () {
+		return type.hashCode() + 31 * Arrays.hashCode(kinds);
+	}
+
+	/*** Check whether the given file starts with the magic number ***/
+	public static boolean isBinary (String filename) {
+		try {
+			RandomAccessFile file = new RandomAccessFile(filename, "r");
+			boolean result = file.length() >= 4 && file.readInt() == MAGIC;
+			file.close();
+			return result;
+		} catch (IOException e) { return false; }
+	}
+
+	/*** Header bytes of this format ***/
+	public byte[] getHeader () throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeUTF(type);
+		out.writeInt(record_size);
+		out.writeInt(kinds.length);
+		for (int i=0; i<kinds.length; i++) {
+			out.writeByte(kinds[i]);
+			out.writeUTF(names[i]);
+		}
+		out.writeLong(record_number);
+		out.writeLong(dictionary_offset);
+		out.close();
+		byte[] body = bytes.toByteArray();
+
+		ByteBuffer header = ByteBuffer.allocate(12 + body.length);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(12 + body.length);
+		header.put(body);
+		header_size = header.capacity();
+		return header.array();
+	}
+
+	/*** Read the header at the beginning of the given file ***/
+	public static BinaryFormat readHeader (RandomAccessFile file) throws IOException {
+		file.seek(0);
+		if (file.readInt() != MAGIC) throw new IOException("Not a binary event file");
+		int version = file.readInt();
+		if (version != VERSION) throw new IOException("Unsupported binary event file version " + version);
+		int size = file.readInt();
+		byte[] body = new byte[size-12];
+		file.readFully(body);
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+		String type = in.readUTF();
+		int record_size = in.readInt();
+		int field_number = in.readInt();
+		byte[] kinds = new byte[field_number];
+		String[] names = new String[field_number];
+		for (int i=0; i<field_number; i++) {
+			kinds[i] = in.readByte();
+			names[i] = in.readUTF();
+		}
+		BinaryFormat format = new BinaryFormat(type, kinds, names);
+		if (format.record_size != record_size) throw new IOException("Corrupt record size " + record_size);
+		format.record_number = in.readLong();
+		format.dictionary_offset = in.readLong();
+		format.header_size = size;
+		return format;
+	}
+
+	/*** Read the string dictionaries of the given file and map their strings to the codes of the companies and transaction types ***/
+	public void readDictionary (RandomAccessFile file) throws IOException {
+		if (dictionary_offset > 0) {
+			file.seek(dictionary_offset);
+			company_codes = readSymbols(file, StockEvent.companies);
+			trtype_codes = readSymbols(file, StockEvent.transaction_types);
+		} else {
+			company_codes = new int[0];
+			trtype_codes = new int[0];
+		}
+	}
+	
+	static int[] readSymbols (RandomAccessFile file, SymbolTable symbols) throws IOException {
+		int[] codes = new int[file.readInt()];
+		for (int i=0; i<codes.length; i++) codes[i] = symbols.encode(file.readUTF());
+		return codes;
+	}
+	
+	/*** Write the string dictionaries at the current position of the given file. The records store the codes of the symbol tables of the stock events. ***/
+	public void writeDictionary (RandomAccessFile file) throws IOException {
+		writeSymbols(file, StockEvent.companies);
+		writeSymbols(file, StockEvent.transaction_types);
+	}
+	
+	static void writeSymbols (RandomAccessFile file, SymbolTable symbols) throws IOException {
+		int number = symbols.size();
+		file.writeInt(number);
+		for (int i=0; i<number; i++) file.writeUTF(symbols.decode(i));
+	}
+
+	/*** Write the given event as a record into the buffer ***/
+	public void encode (Event event, ByteBuffer buffer) {
+		buffer.putInt(event.sec);
+		buffer.putInt(event.id);
+		if (event instanceof CheckEvent) {
+			buffer.putInt(((CheckEvent) event).compatibility);
+		} else {
+		if (event instanceof ActivityEvent) {
+			ActivityEvent a = (ActivityEvent) event;
+			buffer.putInt(a.heartRate);
+			buffer.putInt(a.activity);
+		} else {
+			StockEvent s = (StockEvent) event;
+			buffer.putInt(s.sector);
+			buffer.putInt(s.company);
+			buffer.putDouble(s.price);
+			buffer.putInt(s.volume);
+			buffer.putInt(s.trtype);
+		}}
+	}
+
+	/*** Read the record at the current position of the buffer ***/
+	public Event decode (ByteBuffer buffer) {
+		int sec = buffer.getInt();
+		int id = buffer.getInt();
+		Event event;
+		if (type.equals("check")) {
+			event = new CheckEvent(sec, id, buffer.getInt());
+		} else {
+		if (type.equals("activity")) {
+			int hr = buffer.getInt();
+			int a = buffer.getInt();
+			event = new ActivityEvent(sec, id, a, hr);
+		} else {
+			int sector = buffer.getInt();
+			int company = company_codes[buffer.getInt()];
+			double price = buffer.getDouble();
+			int volume = buffer.getInt();
+			int trtype = trtype_codes[buffer.getInt()];
+			event = new StockEvent(sec, id, price, sector, company, volume, trtype);
+		}}
+		return event;
+	}
+}
@@ -0,0 +1,29 @@
+package event;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cursor over one line stored in a byte buffer.
+ */
+public class ByteCursor extends FieldCursor {
+
+	ByteBuffer buffer;
+
+	/** Point this cursor to the line between from (inclusive) and to (exclusive) */
+	public ByteCursor reset (ByteBuffer b, int from, int to) {
+		buffer = b;
+		position = from;
+		limit = to;
+		return this;
+	}
+
+	int charAt (int i) {
+		return buffer.get(i);
+	}
+
+	String substring (int from, int to) {
+		byte[] bytes = new byte[to - from];
+		for (int i=0; i<bytes.length; i++) bytes[i] = buffer.get(from+i);
+		return new String(bytes);
+	}
+}
@@ -0,0 +1,24 @@
+package event;
+
+/**
+ * Cursor over one line stored in a character sequence.
+ */
+public class CharCursor extends FieldCursor {
+
+	CharSequence line;
+
+	public CharCursor reset (CharSequence l) {
+		line = l;
+		position = 0;
+		limit = l.length();
+		return this;
+	}
+
+	int charAt (int i) {
+		return line.charAt(i);
+	}
+
+	String substring (int from, int to) {
+		return line.subSequence(from, to).toString();
+	}
+}
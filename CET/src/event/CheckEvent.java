@@ -1,5 +1,7 @@
 package event;
 
+import java.util.Random;
+
 public class CheckEvent extends Event {
 	
 	int compatibility;
@@ -21,7 +23,24 @@ public class CheckEvent extends Event {
     	//System.out.println(event.toString());    	
         return event;
 	}
+	
+	/** Parse the line under the given cursor: sec, id, compatibility */
+	public static Event parse (FieldCursor cursor) {
+		int s = cursor.nextInt();
+		int i = cursor.nextInt();
+		int c = cursor.nextInt();
+		return new CheckEvent(s,i,c);
+	}
+	
+	/** Random event with one of the given number of compatibility values */
+	public static Event generate (int sec, int id, int keys, Random random) {
+		return new CheckEvent(sec,id,random.nextInt(keys)+1);
+	}
 
+	public int getKey () {
+		return compatibility;
+	}
+	
 	public boolean isCompatible(Event other) {
 		if (other instanceof CheckEvent) {
 			CheckEvent o = (CheckEvent) other;
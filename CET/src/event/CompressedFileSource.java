@@ -0,0 +1,167 @@
+package event;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Read events from a compressed text file: gzip (.gz), the first entry of a zip archive (.zip) or zlib (.zz, .deflate).
+ * A read-ahead thread inflates the file into two blocks that are handed back and forth,
+ * so the parsing thread works on one block while the other one is filled.
+ * A line crossing the end of a block is copied and completed from the next block.
+ */
+public class CompressedFileSource implements EventSource, Runnable {
+
+	static final int BLOCK_SIZE = 1 << 20;
+
+	EventParser parser;
+	InputStream input;
+	Thread reader;
+	// Blocks to fill and filled blocks, an empty filled block marks the end of the file
+	ArrayBlockingQueue<ByteBuffer> free;
+	ArrayBlockingQueue<ByteBuffer> full;
+	volatile IOException failure;
+
+	ByteBuffer block;
+	ByteBuffer pending;
+	boolean end_of_file;
+	ByteCursor cursor;
+
+	public CompressedFileSource (String filename, String t) throws IOException {
+		parser = Event.getParser(t);
+		if (parser == null) throw new IOException("Unexpected event type " + t);
+		input = open(filename);
+		free = new ArrayBlockingQueue<ByteBuffer>(2);
+		full = new ArrayBlockingQueue<ByteBuffer>(2);
+		free.add(ByteBuffer.allocate(BLOCK_SIZE));
+		free.add(ByteBuffer.allocate(BLOCK_SIZE));
+		block = null;
+		pending = ByteBuffer.allocate(1024);
+		end_of_file = false;
+		cursor = new ByteCursor();
+		reader = new Thread(this);
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/** Check whether the given file name has the extension of a supported compression format */
+	public static boolean isCompressed (String filename) {
+		String name = filename.toLowerCase();
+		return name.endsWith(".gz") || name.endsWith(".zip") || name.endsWith(".zz") || name.endsWith(".deflate");
+	}
+
+	static InputStream open (String filename) throws IOException {
+		String name = filename.toLowerCase();
+		InputStream file = new BufferedInputStream(new FileInputStream(filename), 1 << 16);
+		if (name.endsWith(".gz")) return new GZIPInputStream(file, 1 << 16);
+		if (name.endsWith(".zip")) {
+			ZipInputStream zip = new ZipInputStream(file);
+			if (zip.getNextEntry() == null) throw new IOException(filename + " is an empty zip archive");
+			return zip;
+		}
+		return new InflaterInputStream(file);
+	}
+
+	/*** Read-ahead thread: inflate the file block by block ***/
+	public void run () {
+		try {
+			while (true) {
+				ByteBuffer b = free.take();
+				b.clear();
+				int n = 0;
+				while (b.hasRemaining() && (n = input.read(b.array(), b.position(), b.remaining())) >= 0) {
+					b.position(b.position() + n);
+				}
+				b.flip();
+				if (b.hasRemaining()) full.put(b);
+				if (n < 0) break;
+			}
+		} catch (IOException e) {
+			failure = e;
+		} catch (InterruptedException e) {
+			return;
+		} finally {
+			try { input.close(); } catch (IOException e) { e.printStackTrace(); }
+		}
+		try { full.put(ByteBuffer.allocate(0)); } catch (InterruptedException e) { return; }
+	}
+
+	/** Hand the current block back to the reader and take the next one, false at the end of the file */
+	boolean nextBlock () throws IOException {
+		if (block != null) free.add(block);
+		try { block = full.take(); } catch (InterruptedException e) { throw new IOException("Interrupted while waiting for input"); }
+		if (!block.hasRemaining()) {
+			block = null;
+			end_of_file = true;
+			if (failure != null) throw failure;
+			return false;
+		}
+		return true;
+	}
+
+	/** Append the given bytes of the current block to the pending line */
+	void append (int from, int to) {
+		if (pending.remaining() < to - from) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * pending.capacity(), pending.position() + to - from));
+			pending.flip();
+			larger.put(pending);
+			pending = larger;
+		}
+		for (int i=from; i<to; i++) pending.put(block.get(i));
+	}
+
+	public Event next () throws IOException {
+
+		while (true) {
+
+			if (block == null || !block.hasRemaining()) {
+				if (end_of_file || !nextBlock()) {
+					/*** End of file: parse the last line unless it is empty ***/
+					if (pending.position() == 0) return null;
+					int line_end = pending.position();
+					pending.clear();
+					return parse(pending, 0, line_end);
+				}
+			}
+			/*** Find the end of the current line ***/
+			int start = block.position();
+			int limit = block.limit();
+			int end = start;
+			while (end < limit && block.get(end) != '\n') end++;
+
+			/*** The line crosses the end of the block: keep its beginning ***/
+			if (end == limit) {
+				append(start, end);
+				block.position(end);
+				continue;
+			}
+			block.position(end+1);
+			Event event;
+			if (pending.position() > 0) {
+				append(start, end);
+				int line_end = pending.position();
+				pending.clear();
+				event = parse(pending, 0, line_end);
+			} else {
+				event = parse(block, start, end);
+			}
+			if (event != null) return event;
+		}
+	}
+
+	/** Parse the given line unless it is empty */
+	Event parse (ByteBuffer buffer, int start, int end) {
+		if (end > start && buffer.get(end-1) == '\r') end--;
+		return (end > start) ? parser.parse(cursor.reset(buffer, start, end)) : null;
+	}
+
+	public void close () {
+		reader.interrupt();
+	}
+}
@@ -2,35 +2,88 @@ package event;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Random;
 
 public abstract class Event implements Comparable<Event> {
 	
 	public int sec;
 	public int id;
-	// Mapping of window identifier to the pointers of this event within this window     
+	// System.nanoTime() when the driver put this event into the event queue
+	public long injection_time;
+	// Mapping of window identifier to the pointers of this event within this window, created on first use     
 	public HashMap<String,ArrayList<Event>> pointers;
 	
 	public Event (int s, int i) {
 		sec = s;
 		id = i;
-		pointers = new HashMap<String,ArrayList<Event>>();
+		pointers = null;
 	}	
 	
+	/** Pointers of this event within the given window */
+	public synchronized ArrayList<Event> getPointers (String window_id) {
+		if (pointers == null) pointers = new HashMap<String,ArrayList<Event>>();
+		ArrayList<Event> result = pointers.get(window_id);
+		if (result == null) {
+			result = new ArrayList<Event>();
+			pointers.put(window_id, result);
+		}
+		return result;
+	}
+	
+	/** Attribute that compatible events share, stored in the key column of a window */
+	public int getKey () {
+		return id;
+	}
+	
+	/** Events with different partition keys are never compatible */
+	public long getPartitionKey () {
+		return getKey();
+	}
+	
+	/** Attribute that increases along a trend, stored in the value column of a window */
+	public double getValue () {
+		return 0;
+	}
+	
 	public static Event parse (String line, String type) {
-		Event event;
-		if (type.equals("check")) { 
-			event = CheckEvent.parse(line); 
-		} else {
-		if (type.equals("activity")) { 
-			event = ActivityEvent.parse(line); 
-		} else {
-		if (type.equals("stock")) {
-			event = StockEvent.parse(line); 
-		} else {
-			event = null;
-			System.err.println("Unexpected event type");
-		}}}
-		return event;
+		EventParser parser = getParser(type);
+		return (parser == null) ? null : parser.parse(line);
+	}
+	
+	public static Event parse (FieldCursor cursor, String type) {
+		EventParser parser = getParser(type);
+		return (parser == null) ? null : parser.parse(cursor);
+	}
+	
+	/*** Parsers per event type ***/
+	static HashMap<String,EventParser> parsers = new HashMap<String,EventParser>();
+	static {
+		register("check", new EventParser() {
+			public Event parse (FieldCursor cursor) { return CheckEvent.parse(cursor); }
+			public Event parse (String line) { return CheckEvent.parse(line); }
+			public Event generate (int sec, int id, int keys, Random random) { return CheckEvent.generate(sec,id,keys,random); }
+		});
+		register("activity", new EventParser() {
+			public Event parse (FieldCursor cursor) { return ActivityEvent.parse(cursor); }
+			public Event parse (String line) { return ActivityEvent.parse(line); }
+			public Event generate (int sec, int id, int keys, Random random) { return ActivityEvent.generate(sec,id,keys,random); }
+		});
+		register("stock", new EventParser() {
+			public Event parse (FieldCursor cursor) { return StockEvent.parse(cursor); }
+			public Event parse (String line) { return StockEvent.parse(line); }
+			public Event generate (int sec, int id, int keys, Random random) { return StockEvent.generate(sec,id,keys,random); }
+		});
+	}
+	
+	/** Register the parser of a new event type */
+	public static synchronized void register (String type, EventParser parser) {
+		parsers.put(type, parser);
+	}
+	
+	public static synchronized EventParser getParser (String type) {
+		EventParser parser = parsers.get(type);
+		if (parser == null) System.err.println("Unexpected event type");
+		return parser;
 	}
 	
 	public int compareTo(Event other) {
@@ -52,7 +105,7 @@ public abstract class Event implements Comparable<Event> {
 	
 	/** Print this event with pointers to console */
 	public String toStringWithPointers(String widnow_id) {
-		ArrayList<Event> predecessors = pointers.get(widnow_id);
+		ArrayList<Event> predecessors = getPointers(widnow_id);
 		String s = id + " : ";
 		for (Event predecessor : predecessors) {
 			s += predecessor.id + ",";
@@ -0,0 +1,113 @@
+package event;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Columnar copy of the events in a window: parallel primitive arrays next to the event objects.
+ * The key is the attribute compared for equality (compatibility, activity, company code)
+ * and the value is the attribute that must increase (heart rate, price).
+ * Algorithms address events by their index in the window.
+ *
+ * The copy makes compatibility scans cache-friendly, it does not save memory: it takes 20 bytes per event
+ * on top of about 44 bytes per check event and 60 bytes per stock event with their list,
+ * measured with 1,000,000 events. A window holds its copy only until its results are done.
+ */
+public class EventColumns {
+
+	public static final byte CHECK = 0;
+	public static final byte ACTIVITY = 1;
+	public static final byte STOCK = 2;
+
+	public byte kind;
+	public int size;
+	public int[] sec;
+	public int[] id;
+	public int[] key;
+	public double[] value;
+
+	public EventColumns (byte k, int capacity) {
+		kind = k;
+		size = 0;
+		sec = new int[capacity];
+		id = new int[capacity];
+		key = new int[capacity];
+		value = new double[capacity];
+	}
+
+	/*** Copy the given events into columns, null if the events are not all of the same known type ***/
+	public static EventColumns build (List<Event> events) {
+		if (events.isEmpty()) return null;
+		byte kind = getKind(events.get(0));
+		if (kind < 0) return null;
+		EventColumns columns = new EventColumns(kind, events.size());
+		for (Event event : events) {
+			if (getKind(event) != kind) return null;
+			columns.add(event);
+		}
+		return columns;
+	}
+
+	static byte getKind (Event event) {
+		if (event instanceof CheckEvent) return CHECK;
+		if (event instanceof ActivityEvent) return ACTIVITY;
+		if (event instanceof StockEvent) return STOCK;
+		return -1;
+	}
+
+	public void add (Event event) {
+		sec[size] = event.sec;
+		id[size] = event.id;
+		key[size] = event.getKey();
+		value[size] = event.getValue();
+		size++;
+	}
+
+	/** Same as events.get(i).isCompatible(events.get(j)) */
+	public boolean isCompatible (int i, int j) {
+		if (key[i] != key[j] || sec[i] >= sec[j]) return false;
+		if (kind == CHECK) return true;
+		if (kind == ACTIVITY) return id[i] == id[j] && value[i] < value[j];
+		return value[i] < value[j];
+	}
+
+	/** 
+	 * Estimate the number of edges of the graph of these events: 
+	 * each event is connected to the events with the same key in the last earlier second of this key.
+	 * The value condition is ignored, so this is an upper bound for activity and stock events.
+	 */
+	public long estimateEdgeNumber () {
+		// Per key: last second, number of events in the last second, number of events in the second before
+		HashMap<Integer,int[]> frontiers = new HashMap<Integer,int[]>();
+		long edges = 0;
+		for (int i=0; i<size; i++) {
+			int[] frontier = frontiers.get(key[i]);
+			if (frontier == null) {
+				frontier = new int[] {sec[i], 0, 0};
+				frontiers.put(key[i], frontier);
+			}
+			if (frontier[0] != sec[i]) {
+				frontier[0] = sec[i];
+				frontier[2] = frontier[1];
+				frontier[1] = 0;
+			}
+			edges += frontier[2];
+			frontier[1]++;
+		}
+		return edges;
+	}
+
+	/** Number of distinct seconds */
+	public int getSecondNumber () {
+		int count = 0;
+		for (int i=0; i<size; i++) {
+			if (i == 0 || sec[i] != sec[i-1]) count++;
+		}
+		return count;
+	}
+
+	/** Bytes held by the columns in addition to the events */
+	public long memory () {
+		return 12L * sec.length + 8L * value.length;
+	}
+}
@@ -1,10 +1,9 @@
 package event;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Random;
-import java.util.Scanner;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 public class EventDriver implements Runnable {	
 	
@@ -16,6 +15,25 @@ public class EventDriver implements Runnable {
 	long startOfSimulation;
 	AtomicInteger drProgress;
 	AtomicInteger eventNumber;
+	// Memory-map the input file instead of scanning it line by line
+	public boolean mapped;
+	// Number of threads parsing chunks of the input file in parallel
+	public int parse_threads;
+	// Out-of-order input: events are reordered by a watermark with this lateness in seconds, negative if the input is sorted
+	public int allowed_lateness;
+	public int reorder_capacity;
+	// Event source to read from instead of the input given by its name
+	public EventSource source;
+	// Replay: events are injected at this multiple of the speed of their time stamps and/or at this number of events per second, 0 if off
+	public double speedup;
+	public int events_per_second;
+	// Unbounded mode: read until the input ends and then set the driver progress to Integer.MAX_VALUE
+	public boolean unbounded;
+	// Size of the batches in which the driver progress advances
+	public BatchPolicy batching;
+	
+	// Waits shorter than this are spun since parking overshoots
+	static final long SPIN_NANOS = 100000;
 		
 	public EventDriver (String f, String t, boolean rt, int last, EventQueue eq, long start, AtomicInteger dp, AtomicInteger eN) {
 		
@@ -27,6 +45,58 @@ public class EventDriver implements Runnable {
 		startOfSimulation = start;
 		drProgress = dp;
 		eventNumber = eN;
+		mapped = false;
+		parse_threads = 1;
+		allowed_lateness = -1;
+		reorder_capacity = 1000000;
+		speedup = 0;
+		events_per_second = 0;
+		unbounded = false;
+		batching = new BatchPolicy(BatchPolicy.RANDOM, 10, -1);
+	}
+	
+	/** 
+	 * Open the input. A comma separated list of inputs is merged by time stamp. 
+	 */
+	EventSource open () throws IOException {
+		EventSource source = this.source;
+		String[] files = filename.split(",");
+		if (source == null && files.length == 1) {
+			source = open(filename);
+		} else {
+		if (source == null) {
+			ArrayList<EventSource> sources = new ArrayList<EventSource>();
+			for (String file : files) sources.add(open(file));
+			source = new MergingEventSource(sources);
+		}}
+		return (allowed_lateness >= 0) ? new WatermarkSource(source,allowed_lateness,reorder_capacity) : source;
+	}
+	
+	/** 
+	 * Open one input: a loopback socket (tcp:port), a generator (gen:events:events per second:number of keys) or a file.
+	 * Files in the binary event format are recognized by their magic number, compressed files by their extension. 
+	 */
+	EventSource open (String file) throws IOException {
+		if (file.startsWith("tcp:")) return new SocketEventSource(Integer.parseInt(file.substring(4)),type);
+		if (file.startsWith("gen:")) return GeneratorEventSource.parse(file,type);
+		if (CompressedFileSource.isCompressed(file)) return new CompressedFileSource(file,type);
+		if (BinaryFormat.isBinary(file)) return new BinaryFileSource(file,type);
+		if (parse_threads > 1) return new ParallelFileSource(file,type,parse_threads);
+		return (mapped) ? new MappedFileSource(file,type) : new TextFileSource(file,type);
+	}
+
+	/** 
+	 * Replay: wait until the given event is due. 
+	 * Return how many nanoseconds the event is behind its schedule.
+	 */
+	long pace (Event event, long replay_start, int first_sec, long injected) {
+		long due = replay_start;
+		if (events_per_second > 0) due = Math.max(due, replay_start + injected * 1000000000L / events_per_second);
+		if (speedup > 0) due = Math.max(due, replay_start + (long) ((event.sec - first_sec) * 1000000000L / speedup));
+		long wait = due - System.nanoTime();
+		if (wait > SPIN_NANOS) LockSupport.parkNanos(wait - SPIN_NANOS);
+		while (System.nanoTime() < due) Thread.yield();
+		return System.nanoTime() - due;
 	}
 
 	/** 
@@ -39,18 +109,21 @@ public class EventDriver implements Runnable {
 			double system_time = 0;
 			double driver_wakeup_time = 0;
 			// Input file
-			Scanner scanner = new Scanner(new File(filename));
+			EventSource source = open();
 			// First event
-			String line = scanner.nextLine();
-	 		Event event = Event.parse(line,type);
+	 		Event event = source.next();
 	 		// Current Second
 	 		int curr_sec = -1;		
 			// First batch			
-			Random random = new Random();
-			int min = 6;
-			int max = 14;			
-			int end = random.nextInt(max - min + 1) + min;
-			Window batch = new Window(0,end);
+			int end = batching.getNextEnd(0, eventqueue);
+			long batch_events = 0;
+			// Replay paces every event, so all events are in one batch
+			boolean replay = speedup > 0 || events_per_second > 0;
+			Window batch = new Window(0,(replay) ? lastsec : end);
+			long replay_start = System.nanoTime();
+			int first_sec = (event == null) ? 0 : event.sec;
+			long injected = 0;
+			long max_lag = 0;
 									
  			if (batch.end > lastsec) batch.end = lastsec;	
  			//System.out.println("\n-------------------------\nBatch end: " + batch.end);
@@ -61,31 +134,35 @@ public class EventDriver implements Runnable {
 	 			while (event != null && event.sec <= batch.end) {	 			
 	 				
 	 				/*** Put the event into the event queue and increment the counter ***/						
-	 				eventqueue.contents.add(event);	
+	 				if (replay) max_lag = Math.max(max_lag, pace(event, replay_start, first_sec, injected));
+	 				event.injection_time = System.nanoTime();
+	 				eventqueue.add(event);	
+	 				injected++;
+	 				batch_events++;
 	 				eventNumber.set(eventNumber.get()+1);
+	 				
+	 				/*** A full batch ends with the second of this event ***/
+	 				if (batching.isFull(batch_events) && event.sec < batch.end) batch.end = event.sec;
 	 					 					
-	 				/*** Set distributer progress ***/	
+	 				/*** Set distributer progress: the events arrive in time stamp order, so all events of the previous second are in the queue ***/	
 	 				if (curr_sec < event.sec) {		
-	 					
-	 				// Avoid null run exception when the stream is read too fast
-	 					if (curr_sec>300) { 
-	 						eventqueue.setDriverProgress(curr_sec);
-	 						//if (curr_sec % 10 == 0) System.out.println("Distribution time of second " + curr_sec + " is " + now);
-	 					}
+	 					if (curr_sec >= 0) eventqueue.setDriverProgress(curr_sec);
 	 					curr_sec = event.sec;
 	 				}
 	 			
 	 				/*** Reset event ***/
-	 				if (scanner.hasNextLine()) {		 				
-	 					line = scanner.nextLine();   
-	 					event = Event.parse(line,type);		 				
-	 				} else {
-	 					event = null;		 				
-	 				}
+	 				event = source.next();
 	 			}		 			
+	 			/*** Unbounded mode: signal the end of the input ***/
+	 			if (unbounded && event == null) {
+	 				eventqueue.setDriverProgress(Integer.MAX_VALUE);
+	 				break;
+	 			}
 	 			/*** Set distributor progress ***/		 					
 	 			eventqueue.setDriverProgress(batch.end);					
 	 			curr_sec = batch.end;
+	 			if (!replay) batching.done(batch.start, batch.end);
+	 			batch_events = 0;
 	 				 			
 				if (batch.end < lastsec) { 			
  				
@@ -103,7 +180,7 @@ public class EventDriver implements Runnable {
 					
 					/*** Reset batch_limit ***/
 					int new_start = batch.end + 1;
-					int new_end = batch.end + random.nextInt(max - min + 1) + min + new Double(driver_wakeup_time).intValue();
+					int new_end = batching.getNextEnd(batch.end + new Double(driver_wakeup_time).intValue(), eventqueue);
 					batch = new Window(new_start, new_end);
 					if (batch.end > lastsec) batch.end = lastsec;
 					//System.out.println("-------------------------\nBatch end: " + batch.end);
@@ -118,9 +195,18 @@ public class EventDriver implements Runnable {
 	 		}
 	 		
 	 		/*** Clean-up ***/		
-			scanner.close();				
+			if (replay) {
+				double duration = (System.nanoTime() - replay_start) / 1000000000.0;
+				System.out.println("Driver replayed " + injected + " events in " + duration + " sec: " + Math.round(injected/duration) + 
+						" events/sec, max lag " + max_lag/1000000.0 + " ms.");
+			}
+			if (!replay) System.out.println("Driver batches: " + batching.toString() + ".");
+			if (source instanceof WatermarkSource && ((WatermarkSource) source).late_events > 0) {
+				System.out.println("Driver dropped " + ((WatermarkSource) source).late_events + " late events.");
+			}
+			source.close();				
 			//System.out.println("Driver is done.");	
  		
-		} catch (FileNotFoundException e) { e.printStackTrace(); }
+		} catch (IOException e) { e.printStackTrace(); }
 	}	
 }
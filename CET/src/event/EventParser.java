@@ -0,0 +1,18 @@
+package event;
+
+import java.util.Random;
+
+/**
+ * Parser of one event type. Parsers are registered by type name in Event.
+ */
+public interface EventParser {
+	
+	/** Construct an event from the fields under the cursor */
+	public Event parse (FieldCursor cursor);
+	
+	/** Construct an event from the given line */
+	public Event parse (String line);
+	
+	/** Random event of this type with one of the given number of keys, for inputs generated in memory */
+	public Event generate (int sec, int id, int keys, Random random);
+}
@@ -1,29 +1,127 @@
 package event;
 
+import java.util.ArrayList;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 public class EventQueue {
-	
+
 	public ConcurrentLinkedQueue<Event> contents;
 	public AtomicInteger driverProgress;
-				
-	public EventQueue (AtomicInteger dp) {		
+	// Bounded mode: events are exchanged through a ring buffer and the progress is published without a monitor
+	public EventRingBuffer ring;
+	volatile Thread waiting_consumer;
+	// Queues of further queries that receive every event and every progress of this queue, so that the input is parsed once
+	ArrayList<EventQueue> subscribers;
+
+	public EventQueue (AtomicInteger dp) {
 		contents = new ConcurrentLinkedQueue<Event>();
-		driverProgress = dp;		
+		driverProgress = dp;
+		subscribers = new ArrayList<EventQueue>();
+	}
+
+	/** Bounded event queue with the given capacity. The driver waits while the queue is full. */
+	public EventQueue (AtomicInteger dp, int capacity) {
+		driverProgress = dp;
+		ring = new EventRingBuffer(capacity);
+		subscribers = new ArrayList<EventQueue>();
 	}
 	
-	public synchronized void setDriverProgress (int sec) {
-		driverProgress.set(sec);			
-		notifyAll();		
+	/** Forward all events and progress of this queue to the given queue. Subscribe before the driver starts. */
+	public void subscribe (EventQueue queue) {
+		subscribers.add(queue);
+	}
+
+	public boolean isBounded () {
+		return ring != null;
+	}
+
+	public void add (Event event) {
+		for (EventQueue queue : subscribers) queue.add(event);
+		if (!isBounded()) {
+			contents.add(event);
+			return;
+		}
+		if (!ring.offer(event)) {
+			// All events before this second are in the queue. Publish it such that the scheduler drains the queue.
+			setDriverProgress(event.sec-1);
+			int spins = 0;
+			while (!ring.offer(event)) {
+				wakeConsumer();
+				if (spins < 100) {
+					spins++;
+				} else {
+				if (spins < 200) {
+					spins++;
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(10000);
+				}}
+			}
+		}
+		wakeConsumer();
+	}
+
+	public Event peek () {
+		return (isBounded()) ? ring.peek() : contents.peek();
+	}
+
+	public Event poll () {
+		return (isBounded()) ? ring.poll() : contents.poll();
+	}
+
+	public int size () {
+		return (isBounded()) ? ring.size() : contents.size();
+	}
+
+	void wakeConsumer () {
+		Thread consumer = waiting_consumer;
+		if (consumer != null) LockSupport.unpark(consumer);
+	}
+
+	public void setDriverProgress (int sec) {
+		for (EventQueue queue : subscribers) queue.setDriverProgress(sec);
+		if (!isBounded()) {
+			signalDriverProgress(sec);
+			return;
+		}
+		// Only the driver writes the progress
+		if (driverProgress.get() < sec) driverProgress.set(sec);
+		wakeConsumer();
+	}
+
+	synchronized void signalDriverProgress (int sec) {
+		driverProgress.set(sec);
+		notifyAll();
 	}
 
-	public synchronized boolean getDriverProgress (int sec) {	
-		try {			
-			while (driverProgress.get() < sec) {				
-				wait(); 						
-			}	
+	public synchronized boolean getDriverProgress (int sec) {
+		try {
+			while (driverProgress.get() < sec) {
+				wait();
+			}
 		} catch (InterruptedException e) { e.printStackTrace(); }
-		return true;		
+		return true;
+	}
+
+	/**
+	 * Wait till the driver progress reaches the given second.
+	 * In bounded mode, return as soon as events up to the given second are available
+	 * because the driver cannot progress while the queue is full.
+	 * @return true if the driver progress reached the given second
+	 */
+	public boolean getDriverProgressOrEvents (int sec) {
+		if (!isBounded()) return getDriverProgress(sec);
+
+		waiting_consumer = Thread.currentThread();
+		Event head = ring.peek();
+		while (driverProgress.get() < sec && (head == null || head.sec > sec)) {
+			// Time out to tolerate a missed wake up
+			LockSupport.parkNanos(this, 1000000);
+			head = ring.peek();
+		}
+		waiting_consumer = null;
+		return driverProgress.get() >= sec;
 	}
 }
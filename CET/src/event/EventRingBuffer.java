@@ -0,0 +1,75 @@
+package event;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer single-consumer ring buffer of events.
+ * The driver is the only producer and the scheduler is the only consumer.
+ * Neither side takes a lock: the producer publishes a slot by an ordered write of the tail,
+ * the consumer releases a slot by an ordered write of the head.
+ */
+public class EventRingBuffer {
+
+	final Event[] slots;
+	final int mask;
+	final AtomicLong head;
+	final AtomicLong tail;
+	// Last head seen by the producer and last tail seen by the consumer
+	long head_cache;
+	long tail_cache;
+
+	public EventRingBuffer (int capacity) {
+		int size = 1;
+		while (size < capacity) size <<= 1;
+		slots = new Event[size];
+		mask = size - 1;
+		head = new AtomicLong(0);
+		tail = new AtomicLong(0);
+		head_cache = 0;
+		tail_cache = 0;
+	}
+
+	public int capacity () {
+		return slots.length;
+	}
+
+	/** Producer: append the event unless the buffer is full */
+	public boolean offer (Event event) {
+		long t = tail.get();
+		if (t - head_cache >= slots.length) {
+			head_cache = head.get();
+			if (t - head_cache >= slots.length) return false;
+		}
+		slots[(int) t & mask] = event;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/** Consumer: the oldest event or null if the buffer is empty */
+	public Event peek () {
+		long h = head.get();
+		if (h >= tail_cache) {
+			tail_cache = tail.get();
+			if (h >= tail_cache) return null;
+		}
+		return slots[(int) h & mask];
+	}
+
+	/** Consumer: remove and return the oldest event or null if the buffer is empty */
+	public Event poll () {
+		long h = head.get();
+		if (h >= tail_cache) {
+			tail_cache = tail.get();
+			if (h >= tail_cache) return null;
+		}
+		int index = (int) h & mask;
+		Event event = slots[index];
+		slots[index] = null;
+		head.lazySet(h + 1);
+		return event;
+	}
+
+	public int size () {
+		return (int) (tail.get() - head.get());
+	}
+}
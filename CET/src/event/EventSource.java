@@ -0,0 +1,19 @@
+package event;
+
+import java.io.IOException;
+
+/**
+ * A source of events ordered by their time stamps. 
+ * The event driver pulls events from a source and puts them into the event queue.
+ */
+public interface EventSource {
+	
+	/** 
+	 * Read the next event.
+	 * @return next event or null if the source is exhausted
+	 */
+	public Event next () throws IOException;
+	
+	/** Release the resources held by this source */
+	public void close () throws IOException;
+}
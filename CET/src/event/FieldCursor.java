@@ -0,0 +1,141 @@
+package event;
+
+/**
+ * Cursor over the comma separated fields of one input line.
+ * Numbers are decoded character by character without splitting the line or creating intermediate strings,
+ * fields that an event type does not use are skipped.
+ * A cursor is reset for each line and reused for the whole input.
+ */
+public abstract class FieldCursor {
+
+	int position;
+	int limit;
+
+	/** Character at the given position of the line */
+	abstract int charAt (int i);
+
+	/** String between the given positions of the line */
+	abstract String substring (int from, int to);
+
+	public boolean hasNext () {
+		return position < limit;
+	}
+
+	/** Skip the leading blanks of the current field */
+	void skipBlanks () {
+		while (position < limit && charAt(position) == ' ') position++;
+	}
+
+	/** Move behind the next comma */
+	void endField () {
+		while (position < limit && charAt(position++) != ',') {}
+	}
+
+	/** Skip the given number of fields */
+	public void skip (int fields) {
+		for (int i=0; i<fields; i++) endField();
+	}
+
+	/** 
+	 * Integer in the next field, a field without digits, with other characters after the digits 
+	 * or with a value outside of the int range is rejected 
+	 */
+	public int nextInt () {
+		skipBlanks();
+		int start = position;
+		boolean negative = false;
+		if (position < limit && charAt(position) == '-') {
+			negative = true;
+			position++;
+		}
+		long bound = (negative) ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+		long value = 0;
+		int digits = 0;
+		boolean overflow = false;
+		while (position < limit) {
+			int digit = charAt(position) - '0';
+			if (digit < 0 || digit > 9) break;
+			value = value * 10 + digit;
+			// Stop accumulating once the value is out of range, so that the long cannot overflow on long fields
+			if (value > bound) {
+				overflow = true;
+				value = bound;
+			}
+			digits++;
+			position++;
+		}
+		// Trailing blanks and the carriage return of the line are allowed
+		while (position < limit && (charAt(position) == ' ' || charAt(position) == '\r')) position++;
+		if (digits == 0 || overflow || (position < limit && charAt(position) != ',')) {
+			while (position < limit && charAt(position) != ',' && charAt(position) != '\r') position++;
+			throw new NumberFormatException("Not an integer: \"" + substring(start, position) + "\"");
+		}
+		endField();
+		return (int) ((negative) ? -value : value);
+	}
+
+	/** Number in the next field, a field that is not a number is rejected */
+	public double nextDouble () {
+		skipBlanks();
+		int start = position;
+		boolean negative = false;
+		if (position < limit && charAt(position) == '-') {
+			negative = true;
+			position++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean fraction = false;
+		while (position < limit) {
+			int c = charAt(position);
+			if (c == '.' && !fraction) {
+				fraction = true;
+			} else {
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (fraction) scale++;
+			} else {
+				break;
+			}}
+			position++;
+		}
+		// A sign or a point without digits, names such as NaN are left to the JDK below
+		if (digits == 0 && (position >= limit || charAt(position) == ',' || charAt(position) == ' ' || charAt(position) == '\r')) {
+			while (position < limit && charAt(position) != ',' && charAt(position) != '\r') position++;
+			throw new NumberFormatException("Not a number: \"" + substring(start, position) + "\"");
+		}
+		// Exact only if both the mantissa and the power of ten are exact doubles, otherwise fall back to the JDK
+		if (digits > 15 || scale > 22 || (position < limit && charAt(position) != ',' && charAt(position) != ' ' && charAt(position) != '\r')) {
+			position = start;
+			return Double.parseDouble(nextString());
+		}
+		endField();
+		double value = (scale == 0) ? mantissa : mantissa / POWERS_OF_TEN[scale];
+		return (negative) ? -value : value;
+	}
+
+	/** Code of the next field in the given dictionary */
+	public int nextSymbol (SymbolTable symbols) {
+		skipBlanks();
+		int start = position;
+		while (position < limit && charAt(position) != ',' && charAt(position) != '\r') position++;
+		int code = symbols.encode(this, start, position);
+		endField();
+		return code;
+	}
+
+	public String nextString () {
+		skipBlanks();
+		int start = position;
+		while (position < limit && charAt(position) != ',' && charAt(position) != '\r') position++;
+		String value = substring(start, position);
+		endField();
+		return value;
+	}
+
+	static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+}
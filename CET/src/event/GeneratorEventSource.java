@@ -0,0 +1,46 @@
+package event;
+
+import java.util.Random;
+
+/**
+ * Generate events of a registered type in memory, without any input file.
+ * Events arrive at a constant number per second and get one of a given number of random keys.
+ */
+public class GeneratorEventSource implements EventSource {
+
+	int event_number;
+	int events_per_second;
+	int keys;
+	EventParser parser;
+	Random random;
+	int id;
+
+	public GeneratorEventSource (int en, int eps, int k, String type) {
+		if (en < 0) throw new IllegalArgumentException("Generator needs a non-negative number of events, got " + en);
+		if (eps <= 0) throw new IllegalArgumentException("Generator needs a positive number of events per second, got " + eps);
+		if (k <= 0) throw new IllegalArgumentException("Generator needs a positive number of keys, got " + k);
+		event_number = en;
+		events_per_second = eps;
+		keys = k;
+		parser = Event.getParser(type);
+		if (parser == null) throw new IllegalArgumentException("Generator has no event type " + type);
+		random = new Random(0);
+		id = 0;
+	}
+
+	/** Create a generator from its specification gen:events:events per second:number of keys */
+	public static GeneratorEventSource parse (String spec, String type) {
+		String[] parameters = spec.split(":");
+		if (parameters.length != 4) throw new IllegalArgumentException("Generator is given as gen:events:events per second:number of keys, got " + spec);
+		return new GeneratorEventSource(Integer.parseInt(parameters[1]),Integer.parseInt(parameters[2]),Integer.parseInt(parameters[3]),type);
+	}
+
+	public Event next () {
+		if (id >= event_number) return null;
+		int sec = id / events_per_second;
+		id++;
+		return parser.generate(sec, id, keys, random);
+	}
+
+	public void close () {}
+}
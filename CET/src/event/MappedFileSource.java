@@ -0,0 +1,74 @@
+package event;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-map the input file and parse events directly from the mapped bytes.
+ * Line delimiters are found in place, no line is copied into a string.
+ * Files larger than a region are mapped region by region,
+ * a line crossing the end of a region is re-read from the beginning of the next region.
+ */
+public class MappedFileSource implements EventSource {
+
+	static final long REGION_SIZE = 1 << 30;
+
+	EventParser parser;
+	FileChannel channel;
+	long file_size;
+	long region_start;
+	MappedByteBuffer region;
+	ByteCursor cursor;
+
+	public MappedFileSource (String filename, String t) throws IOException {
+		parser = Event.getParser(t);
+		if (parser == null) throw new IOException("Unexpected event type " + t);
+		channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+		file_size = channel.size();
+		cursor = new ByteCursor();
+		map(0);
+	}
+
+	/** Map the region starting at the given offset of the file */
+	void map (long start) throws IOException {
+		region_start = start;
+		long size = Math.min(REGION_SIZE, file_size - start);
+		region = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+	}
+
+	public Event next () throws IOException {
+
+		while (true) {
+
+			/*** Find the end of the current line ***/
+			int start = region.position();
+			int limit = region.limit();
+			int end = start;
+			while (end < limit && region.get(end) != '\n') end++;
+
+			/*** The line crosses the end of the region: map the next region from the beginning of the line ***/
+			if (end == limit && region_start + limit < file_size) {
+				if (start == 0) throw new IOException("Line is longer than " + REGION_SIZE + " bytes");
+				map(region_start + start);
+				continue;
+			}
+			/*** End of file ***/
+			if (start == end && end == limit) return null;
+
+			region.position((end < limit) ? end+1 : end);
+			int line_end = (end > start && region.get(end-1) == '\r') ? end-1 : end;
+			if (line_end > start) {
+				cursor.reset(region, start, line_end);
+				return parser.parse(cursor);
+			}
+		}
+	}
+
+	public void close () throws IOException {
+		region = null;
+		channel.close();
+	}
+}
@@ -0,0 +1,132 @@
+package event;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Merge several event sources, each ordered by time stamp, into one source ordered by time stamp.
+ *
+ * Each input source is read ahead by its own thread in blocks of events, such that reading and parsing overlap across inputs.
+ * A heap holds the current event of each input and returns the event with the smallest time stamp.
+ * Events with the same time stamp are returned in the order of their inputs.
+ */
+public class MergingEventSource implements EventSource {
+
+	static final int BLOCK_SIZE = 1024;
+	static final int BLOCKS_AHEAD = 4;
+
+	ArrayList<Input> inputs;
+	PriorityQueue<Input> heap;
+	boolean started;
+
+	public MergingEventSource (ArrayList<EventSource> sources) {
+		inputs = new ArrayList<Input>();
+		for (int i=0; i<sources.size(); i++) {
+			Input input = new Input(sources.get(i), i);
+			inputs.add(input);
+			Thread reader = new Thread(input, "reader " + i);
+			reader.setDaemon(true);
+			reader.start();
+		}
+		heap = new PriorityQueue<Input>();
+		started = false;
+	}
+
+	public Event next () throws IOException {
+		if (!started) {
+			for (Input input : inputs) {
+				if (input.advance()) heap.add(input);
+			}
+			started = true;
+		}
+		Input input = heap.poll();
+		if (input == null) return null;
+		Event event = input.current;
+		if (input.advance()) heap.add(input);
+		return event;
+	}
+
+	public void close () throws IOException {
+		for (Input input : inputs) {
+			input.closed = true;
+			input.blocks.clear();
+		}
+	}
+
+	/*** One input source with its read-ahead blocks ***/
+	class Input implements Runnable, Comparable<Input> {
+
+		EventSource source;
+		int index;
+		ArrayBlockingQueue<ArrayList<Event>> blocks;
+		ArrayList<Event> block;
+		int position;
+		Event current;
+		volatile Throwable failure;
+		volatile boolean closed;
+
+		Input (EventSource s, int i) {
+			source = s;
+			index = i;
+			blocks = new ArrayBlockingQueue<ArrayList<Event>>(BLOCKS_AHEAD);
+			block = new ArrayList<Event>();
+			position = 0;
+			closed = false;
+		}
+
+		/*** Read the source and pass its events on in blocks. An empty block marks the end of the source, also after a failure. ***/
+		public void run () {
+			try {
+				ArrayList<Event> events = new ArrayList<Event>(BLOCK_SIZE);
+				Event event = source.next();
+				while (event != null && !closed) {
+					events.add(event);
+					if (events.size() == BLOCK_SIZE) {
+						blocks.put(events);
+						events = new ArrayList<Event>(BLOCK_SIZE);
+					}
+					event = source.next();
+				}
+				if (!events.isEmpty()) blocks.put(events);
+			} catch (Throwable e) {
+				// e.g. a malformed line, reported by next() of the merging source
+				failure = e;
+			} finally {
+				try {
+					source.close();
+				} catch (Throwable e) {
+					if (failure == null) failure = e;
+				}
+				try { blocks.put(new ArrayList<Event>()); } catch (InterruptedException e) { e.printStackTrace(); }
+			}
+		}
+
+		/*** Move to the next event of this input, return false at its end ***/
+		boolean advance () throws IOException {
+			if (position == block.size()) {
+				try {
+					block = blocks.take();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+				position = 0;
+				if (block.isEmpty()) {
+					if (failure instanceof IOException) throw (IOException) failure;
+					if (failure != null) throw new IOException("Failed to read input " + index, failure);
+					current = null;
+					return false;
+				}
+			}
+			current = block.get(position);
+			block.set(position++, null);
+			return true;
+		}
+
+		public int compareTo (Input other) {
+			if (this.current.sec != other.current.sec) return (this.current.sec < other.current.sec) ? -1 : 1;
+			return this.index - other.index;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package event;
+
+import java.util.ArrayList;
+
+/**
+ * Slice of the stream from start to end (inclusive) that no window boundary cuts through.
+ * Each event is stored once in the pane of its second and windows are assembled from consecutive panes.
+ */
+public class Pane {
+
+	public int start;
+	public int end;
+	public ArrayList<Event> events;
+	// Injection time of the last event of this pane
+	public long last_injection;
+
+	public Pane (int s, int e) {
+		start = s;
+		end = e;
+		events = new ArrayList<Event>();
+		last_injection = 0;
+	}
+
+	public boolean relevant (Event e) {
+		return start <= e.sec && e.sec <= end;
+	}
+
+	public void add (Event e) {
+		events.add(e);
+		if (last_injection < e.injection_time) last_injection = e.injection_time;
+	}
+
+	/*** Width of the panes such that every window start and every window end falls on a pane boundary ***/
+	public static int getWidth (int window_length, int window_slide) {
+		int a = window_slide;
+		int b = window_length + 1;
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return Math.max(a, 1);
+	}
+
+	public String toString () {
+		return "Pane [" + start + "," + end + "] with " + events.size() + " events.";
+	}
+}
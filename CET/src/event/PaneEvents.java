@@ -0,0 +1,75 @@
+package event;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Events of a window read from the panes it spans, without copying them.
+ * Each part is the event list of a pane, only the parts of boundary panes that a window cuts through are copies.
+ * The view is read-only and the parts must not change while the window is processed.
+ */
+public class PaneEvents extends AbstractList<Event> implements RandomAccess {
+
+	ArrayList<List<Event>> parts;
+	// Number of events in the parts up to and including each part
+	ArrayList<Integer> ends;
+	int size;
+
+	public PaneEvents () {
+		parts = new ArrayList<List<Event>>();
+		ends = new ArrayList<Integer>();
+		size = 0;
+	}
+
+	/** Append the given events */
+	public void addPart (List<Event> events) {
+		if (events.isEmpty()) return;
+		parts.add(events);
+		size += events.size();
+		ends.add(size);
+	}
+
+	public Event get (int index) {
+		if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+		// Binary search for the first part that ends after the index
+		int low = 0;
+		int high = parts.size() - 1;
+		while (low < high) {
+			int mid = (low + high) / 2;
+			if (ends.get(mid) > index) {
+				high = mid;
+			} else {
+				low = mid + 1;
+		}}
+		int start = (low == 0) ? 0 : ends.get(low-1);
+		return parts.get(low).get(index - start);
+	}
+
+	/** Walk the parts one after the other instead of searching the part of each index */
+	public Iterator<Event> iterator () {
+		return new Iterator<Event>() {
+			int part = 0;
+			int index = 0;
+			public boolean hasNext () {
+				return part < parts.size();
+			}
+			public Event next () {
+				if (!hasNext()) throw new NoSuchElementException();
+				Event e = parts.get(part).get(index++);
+				if (index == parts.get(part).size()) {
+					part++;
+					index = 0;
+				}
+				return e;
+			}
+		};
+	}
+
+	public int size () {
+		return size;
+	}
+}
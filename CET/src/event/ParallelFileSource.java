@@ -0,0 +1,128 @@
+package event;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Split the input file into chunks at line boundaries and parse the chunks on several threads.
+ * Parsed chunks are handed out in the order of the file, such that the events keep their time stamp order.
+ *
+ * A chunk covers the lines that start within its byte range.
+ * The parser of a chunk skips the partial line at its beginning and finishes the line crossing its end.
+ */
+public class ParallelFileSource implements EventSource {
+
+	static final long CHUNK_SIZE = 8 << 20;
+	// A line crossing the end of a chunk must end within this number of bytes
+	static final long MAX_LINE_LENGTH = 1 << 20;
+
+	EventParser parser;
+	FileChannel channel;
+	long file_size;
+	long next_chunk;
+	ExecutorService parsers;
+	int max_chunks_in_flight;
+	ArrayDeque<Future<ArrayList<Event>>> chunks;
+	ArrayList<Event> current;
+	int returned;
+
+	public ParallelFileSource (String filename, String t, int threads) throws IOException {
+		parser = Event.getParser(t);
+		if (parser == null) throw new IOException("Unexpected event type " + t);
+		channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+		file_size = channel.size();
+		next_chunk = 0;
+		parsers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread (Runnable r) {
+				Thread thread = new Thread(r, "parser");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		max_chunks_in_flight = 2 * threads;
+		chunks = new ArrayDeque<Future<ArrayList<Event>>>();
+		current = new ArrayList<Event>();
+		returned = 0;
+		submitChunks();
+	}
+
+	/*** Keep the parsers busy without reading the whole file ahead ***/
+	void submitChunks () {
+		while (chunks.size() < max_chunks_in_flight && next_chunk < file_size) {
+			final long start = next_chunk;
+			final long end = Math.min(start + CHUNK_SIZE, file_size);
+			chunks.add(parsers.submit(new Callable<ArrayList<Event>>() {
+				public ArrayList<Event> call() throws IOException {
+					return parseChunk(start, end);
+				}
+			}));
+			next_chunk = end;
+		}
+	}
+
+	/*** Parse all lines starting between start (inclusive) and end (exclusive) ***/
+	ArrayList<Event> parseChunk (long start, long end) throws IOException {
+
+		// Map one byte before the chunk to see whether the chunk starts with a new line
+		long map_start = (start > 0) ? start-1 : 0;
+		long map_end = Math.min(end + MAX_LINE_LENGTH, file_size);
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, map_start, map_end - map_start);
+		int chunk_end = (int) (end - map_start);
+		int limit = buffer.limit();
+		ByteCursor cursor = new ByteCursor();
+		ArrayList<Event> events = new ArrayList<Event>();
+
+		// The partial line at the beginning belongs to the previous chunk
+		int position = 0;
+		if (start > 0) {
+			while (position < limit && buffer.get(position) != '\n') position++;
+			position++;
+		}
+		while (position < chunk_end) {
+			int line_end = position;
+			while (line_end < limit && buffer.get(line_end) != '\n') line_end++;
+			if (line_end == limit && map_end < file_size) throw new IOException("Line is longer than " + MAX_LINE_LENGTH + " bytes");
+			int content_end = (line_end > position && buffer.get(line_end-1) == '\r') ? line_end-1 : line_end;
+			if (content_end > position) {
+				Event event = parser.parse(cursor.reset(buffer, position, content_end));
+				if (event != null) events.add(event);
+			}
+			position = line_end + 1;
+		}
+		return events;
+	}
+
+	public Event next () throws IOException {
+		while (returned == current.size()) {
+			if (chunks.isEmpty()) return null;
+			try {
+				current = chunks.poll().get();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			} catch (ExecutionException e) {
+				throw new IOException(e.getCause());
+			}
+			returned = 0;
+			submitChunks();
+		}
+		Event event = current.get(returned);
+		current.set(returned++, null);
+		return event;
+	}
+
+	public void close () throws IOException {
+		parsers.shutdownNow();
+		channel.close();
+	}
+}
@@ -0,0 +1,56 @@
+package event;
+
+/**
+ * Compatibility predicate of a query: whether an event can follow another event in a trend.
+ * Every predicate requires equal partition keys, so that key-partitioned graphs stay valid.
+ */
+public abstract class Predicate {
+
+	public String name;
+
+	public Predicate (String n) {
+		name = n;
+	}
+
+	public abstract boolean isCompatible (Event first, Event second);
+
+	/*** Predicate of each event type: Event.isCompatible ***/
+	public static final Predicate DEFAULT = new Predicate("default") {
+		public boolean isCompatible (Event first, Event second) {
+			return first.isCompatible(second);
+		}
+	};
+
+	/*** Same key and later second ***/
+	public static final Predicate ANY = new Predicate("any") {
+		public boolean isCompatible (Event first, Event second) {
+			return first.getClass() == second.getClass() && first.getPartitionKey() == second.getPartitionKey() && first.sec < second.sec;
+		}
+	};
+
+	/*** Same key, later second and higher value ***/
+	public static final Predicate INCREASING = new Predicate("increasing") {
+		public boolean isCompatible (Event first, Event second) {
+			return ANY.isCompatible(first, second) && first.getValue() < second.getValue();
+		}
+	};
+
+	/*** Same key, later second and lower value ***/
+	public static final Predicate DECREASING = new Predicate("decreasing") {
+		public boolean isCompatible (Event first, Event second) {
+			return ANY.isCompatible(first, second) && first.getValue() > second.getValue();
+		}
+	};
+
+	/** Predicate of the given name, the default predicate for unknown names */
+	public static Predicate get (String name) {
+		if (name.equals(ANY.name)) return ANY;
+		if (name.equals(INCREASING.name)) return INCREASING;
+		if (name.equals(DECREASING.name)) return DECREASING;
+		return DEFAULT;
+	}
+
+	public String toString () {
+		return name;
+	}
+}
@@ -0,0 +1,124 @@
+package event;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Receive events as text lines over a loopback TCP connection.
+ *
+ * The source listens on the given port and accepts one sender.
+ * Reads are non-blocking and driven by a selector. Bytes are received into a direct buffer
+ * and lines are parsed in place, a partial line at the end of the buffer is kept for the next read.
+ */
+public class SocketEventSource implements EventSource {
+
+	static final int BUFFER_SIZE = 1 << 16;
+
+	EventParser parser;
+	ServerSocketChannel server;
+	SocketChannel client;
+	Selector selector;
+	ByteBuffer buffer;
+	ByteCursor cursor;
+	boolean end_of_stream;
+
+	// Ingest statistics
+	long event_number;
+	long byte_number;
+	long first_byte_time;
+
+	public SocketEventSource (int port, String type) throws IOException {
+		parser = Event.getParser(type);
+		if (parser == null) throw new IOException("Unexpected event type " + type);
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.configureBlocking(false);
+		server.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		buffer.flip();
+		cursor = new ByteCursor();
+		end_of_stream = false;
+		event_number = 0;
+		byte_number = 0;
+		System.out.println("Waiting for a sender on port " + port);
+	}
+
+	public Event next () throws IOException {
+		while (true) {
+
+			/*** Parse the next complete line in the buffer ***/
+			int start = buffer.position();
+			int limit = buffer.limit();
+			int end = start;
+			while (end < limit && buffer.get(end) != '\n') end++;
+
+			if (end < limit || (end_of_stream && start < limit)) {
+				buffer.position((end < limit) ? end+1 : end);
+				int line_end = (end > start && buffer.get(end-1) == '\r') ? end-1 : end;
+				if (line_end > start) {
+					event_number++;
+					return parser.parse(cursor.reset(buffer, start, line_end));
+				}
+				continue;
+			}
+			if (end_of_stream) return null;
+
+			/*** Keep the partial line and receive more bytes ***/
+			buffer.compact();
+			if (!buffer.hasRemaining()) throw new IOException("Line is longer than " + BUFFER_SIZE + " bytes");
+			receive();
+			buffer.flip();
+		}
+	}
+
+	/*** Wait till the sender connects or sends bytes ***/
+	void receive () throws IOException {
+		int received = 0;
+		while (received == 0 && !end_of_stream) {
+			selector.select();
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				if (key.isAcceptable()) {
+					client = server.accept();
+					if (client == null) continue;
+					client.configureBlocking(false);
+					client.register(selector, SelectionKey.OP_READ);
+					// Only one sender is served
+					key.cancel();
+					server.close();
+				} else {
+				if (key.isReadable()) {
+					int n = client.read(buffer);
+					if (n < 0) {
+						end_of_stream = true;
+					} else {
+						if (byte_number == 0 && n > 0) first_byte_time = System.nanoTime();
+						byte_number += n;
+						received += n;
+					}
+				}}
+			}
+		}
+	}
+
+	public void close () throws IOException {
+		double duration = (System.nanoTime() - first_byte_time) / 1000000000.0;
+		if (byte_number > 0) {
+			System.out.println("Received " + event_number + " events (" + byte_number + " bytes) in " + duration + " sec: " +
+					Math.round(event_number/duration) + " events/sec.");
+		}
+		if (client != null) client.close();
+		if (server.isOpen()) server.close();
+		selector.close();
+	}
+}
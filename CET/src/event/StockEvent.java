@@ -1,14 +1,21 @@
 package event;
 
+import java.util.Random;
+
 public class StockEvent extends Event {
 	
+	// Dictionaries of companies and transaction types shared by all stock events
+	public static final SymbolTable companies = new SymbolTable();
+	public static final SymbolTable transaction_types = new SymbolTable();
+	
 	public int sector;
-	public String company;
+	// Codes of the company and of the transaction type in their dictionaries
+	public int company;
 	public double price;
 	public int volume;
-	public String trtype;
+	public int trtype;
 	
-	public StockEvent (int sec, int i, double p, int s, String c, int vol, String trt) {
+	public StockEvent (int sec, int i, double p, int s, int c, int vol, int trt) {
 		super(sec,i);
 		sector = s;
 		company = c;
@@ -17,6 +24,18 @@ public class StockEvent extends Event {
 		trtype = trt;
 	}
 	
+	public StockEvent (int sec, int i, double p, int s, String c, int vol, String trt) {
+		this(sec,i,p,s,companies.encode(c),vol,transaction_types.encode(trt));
+	}
+	
+	public String getCompany () {
+		return companies.decode(company);
+	}
+	
+	public String getTransactionType () {
+		return transaction_types.decode(trtype);
+	}
+	
 	public static Event parse (String line) {
 		
 		String[] values = line.split(", ");
@@ -34,10 +53,36 @@ public class StockEvent extends Event {
         return event;
 	}
 	
+	/** Parse the line under the given cursor: id, sec, sector, company, price, volume, transaction type */
+	public static Event parse (FieldCursor cursor) {
+		int i = cursor.nextInt();
+		int sec = cursor.nextInt();
+		int s = cursor.nextInt();
+		int c = cursor.nextSymbol(companies);
+		double p = cursor.nextDouble();
+		int v = cursor.nextInt();
+		int t = cursor.nextSymbol(transaction_types);
+		return new StockEvent(sec,i,p,s,c,v,t);
+	}
+	
+	/** Random transaction of one of the given number of companies */
+	public static Event generate (int sec, int id, int keys, Random random) {
+		String c = "C" + (random.nextInt(keys)+1);
+		return new StockEvent(sec,id,random.nextInt(50000)/100.0,random.nextInt(11)+1,c,random.nextInt(10000),(random.nextBoolean() ? "B" : "S"));
+	}
+	
+	public int getKey () {
+		return company;
+	}
+	
+	public double getValue () {
+		return price;
+	}
+	
 	public boolean isCompatible(Event other) {
 		if (other instanceof StockEvent) {
 			StockEvent o = (StockEvent) other;
-			return this.company.equals(o.company) && this.price < o.price && this.sec < o.sec;
+			return this.company == o.company && this.price < o.price && this.sec < o.sec;
 		}
 		return false;
 	}
@@ -0,0 +1,103 @@
+package event;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Map string attributes to dense integer codes at ingest time.
+ * Events store and compare codes instead of strings.
+ *
+ * Lookups are lock-free. A new symbol is added under a lock: its code is written before its key is published,
+ * so a reader that sees the key also sees the code. A full table is copied into a larger one.
+ * New symbols are rare compared to lookups, e.g., a few hundred tickers for millions of stock events.
+ */
+public class SymbolTable {
+
+	static class Table {
+		final AtomicReferenceArray<String> keys;
+		final int[] codes;
+		Table (int capacity) {
+			keys = new AtomicReferenceArray<String>(capacity);
+			codes = new int[capacity];
+		}
+	}
+
+	volatile Table table;
+	ArrayList<String> symbols;
+
+	public SymbolTable () {
+		table = new Table(64);
+		symbols = new ArrayList<String>();
+	}
+
+	/** Code of the given symbol */
+	public int encode (String symbol) {
+		int code = find(table, symbol, 0, symbol.length(), symbol.hashCode(), null);
+		return (code >= 0) ? code : add(symbol);
+	}
+
+	/** Code of the symbol between from (inclusive) and to (exclusive) under the cursor. No string is created for known symbols. */
+	public int encode (FieldCursor cursor, int from, int to) {
+		int hash = 0;
+		for (int i=from; i<to; i++) hash = 31 * hash + cursor.charAt(i);
+		int code = find(table, null, from, to, hash, cursor);
+		return (code >= 0) ? code : add(cursor.substring(from, to));
+	}
+
+	/** Symbol of the given code */
+	public synchronized String decode (int code) {
+		return symbols.get(code);
+	}
+
+	public synchronized int size () {
+		return symbols.size();
+	}
+
+	/*** Find the code of a symbol given as string or as cursor range, -1 if the symbol is unknown ***/
+	static int find (Table t, String symbol, int from, int to, int hash, FieldCursor cursor) {
+		int mask = t.keys.length() - 1;
+		int length = to - from;
+		for (int slot = mix(hash) & mask; t.keys.get(slot) != null; slot = (slot + 1) & mask) {
+			String key = t.keys.get(slot);
+			if (key.length() == length && key.hashCode() == hash && matches(key, symbol, from, cursor)) return t.codes[slot];
+		}
+		return -1;
+	}
+
+	static boolean matches (String key, String symbol, int from, FieldCursor cursor) {
+		if (symbol != null) return key.equals(symbol);
+		for (int i=0; i<key.length(); i++) {
+			if (key.charAt(i) != cursor.charAt(from+i)) return false;
+		}
+		return true;
+	}
+
+	static int mix (int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/*** Add a new symbol, the table is kept at most half full ***/
+	synchronized int add (String symbol) {
+		int code = find(table, symbol, 0, symbol.length(), symbol.hashCode(), null);
+		if (code >= 0) return code;
+
+		code = symbols.size();
+		symbols.add(symbol);
+		if (2 * symbols.size() > table.keys.length()) {
+			Table larger = new Table(2 * table.keys.length());
+			for (int i=0; i<symbols.size(); i++) insert(larger, symbols.get(i), i);
+			table = larger;
+		} else {
+			insert(table, symbol, code);
+		}
+		return code;
+	}
+
+	static void insert (Table t, String symbol, int code) {
+		int mask = t.keys.length() - 1;
+		int slot = mix(symbol.hashCode()) & mask;
+		while (t.keys.get(slot) != null) slot = (slot + 1) & mask;
+		t.codes[slot] = code;
+		t.keys.set(slot, symbol);
+	}
+}
@@ -0,0 +1,34 @@
+package event;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Scanner;
+
+/**
+ * Read the input file line by line and parse each line into an event with a reused cursor.
+ */
+public class TextFileSource implements EventSource {
+	
+	EventParser parser;
+	Scanner scanner;
+	CharCursor cursor;
+	
+	public TextFileSource (String filename, String t) throws IOException {
+		parser = Event.getParser(t);
+		if (parser == null) throw new IOException("Unexpected event type " + t);
+		scanner = new Scanner(new File(filename));
+		cursor = new CharCursor();
+	}
+	
+	public Event next () {
+		while (scanner.hasNextLine()) {
+			String line = scanner.nextLine();
+			if (!line.isEmpty()) return parser.parse(cursor.reset(line));
+		}
+		return null;
+	}
+	
+	public void close () {
+		scanner.close();
+	}
+}
@@ -0,0 +1,85 @@
+package event;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Restore the time stamp order of an out-of-order event source.
+ *
+ * The watermark is the maximal time stamp seen so far minus the allowed lateness.
+ * Events are held in a bounded reorder buffer until their second is below the watermark,
+ * then they are released in time stamp order. Events of the same second keep their arrival order.
+ * An event is late if its second has already been released. Late events are dropped and counted.
+ * If the reorder buffer is full, its oldest second is released before the watermark passes it.
+ */
+public class WatermarkSource implements EventSource {
+
+	EventSource source;
+	int allowed_lateness;
+	int capacity;
+	// Buffered events per second
+	TreeMap<Integer,ArrayDeque<Event>> buffer;
+	int size;
+	int max_sec;
+	int released_sec;
+	boolean exhausted;
+	public long late_events;
+
+	public WatermarkSource (EventSource s, int lateness, int c) {
+		source = s;
+		allowed_lateness = lateness;
+		capacity = c;
+		buffer = new TreeMap<Integer,ArrayDeque<Event>>();
+		size = 0;
+		max_sec = Integer.MIN_VALUE;
+		released_sec = Integer.MIN_VALUE;
+		exhausted = false;
+		late_events = 0;
+	}
+
+	public int getWatermark () {
+		return (max_sec == Integer.MIN_VALUE) ? Integer.MIN_VALUE : max_sec - allowed_lateness;
+	}
+
+	public Event next () throws IOException {
+		while (true) {
+
+			/*** Release the oldest event if its second is complete or the buffer is full ***/
+			if (!buffer.isEmpty()) {
+				Map.Entry<Integer,ArrayDeque<Event>> first = buffer.firstEntry();
+				if (exhausted || first.getKey() < getWatermark() || size > capacity) {
+					Event event = first.getValue().poll();
+					if (first.getValue().isEmpty()) buffer.remove(first.getKey());
+					size--;
+					if (released_sec < event.sec) released_sec = event.sec;
+					return event;
+				}
+			}
+			if (exhausted) return null;
+
+			/*** Buffer the next event unless it is late ***/
+			Event event = source.next();
+			if (event == null) {
+				exhausted = true;
+			} else {
+			if (event.sec <= released_sec) {
+				late_events++;
+			} else {
+				ArrayDeque<Event> events = buffer.get(event.sec);
+				if (events == null) {
+					events = new ArrayDeque<Event>();
+					buffer.put(event.sec, events);
+				}
+				events.add(event);
+				size++;
+				if (max_sec < event.sec) max_sec = event.sec;
+			}}
+		}
+	}
+
+	public void close () throws IOException {
+		source.close();
+	}
+}
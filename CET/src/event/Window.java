@@ -1,15 +1,26 @@
 package event;
 
+import graph.GraphBuilder;
 import graph.Partition;
 import java.util.ArrayList;
+import java.util.List;
 
 public class Window {
 	
 	public String id;
 	public int start;
 	public int end;
-	public ArrayList<Event> events;
+	public List<Event> events;
 	public int event_number;
+	// Injection time of the last event of this window
+	public long last_injection;
+	// Compatibility predicate of the query of this window
+	public Predicate predicate;
+	// Eager mode: graph of the events constructed while this window is filling, null if the graph is constructed when the window is done
+	public GraphBuilder builder;
+	// Columnar copy of the events, created on first use and released when the results of this window are done
+	EventColumns columns;
+	boolean columns_built;
 		
 	public Window (int s, int e) {
 		id = s + "-" + e;
@@ -17,6 +28,42 @@ public class Window {
 		end = e;
 		events = new ArrayList<Event>();
 		event_number = 0;
+		last_injection = 0;
+		predicate = Predicate.DEFAULT;
+		builder = null;
+		columns = null;
+		columns_built = false;
+	}
+	
+	/** Columnar copy of the events of this window, null if the events cannot be stored in columns */
+	public synchronized EventColumns getColumns () {
+		if (!columns_built) {
+			columns = EventColumns.build(events);
+			columns_built = true;
+		}
+		return columns;
+	}
+	
+	/** Release the columnar copy of the events once the results of this window are done */
+	public synchronized void dropColumns () {
+		columns = null;
+		columns_built = false;
+	}
+	
+	/** Add the given event, in eager mode also to the graph */
+	public void add (Event e) {
+		events.add(e);
+		if (last_injection < e.injection_time) last_injection = e.injection_time;
+		if (builder != null) builder.add(e);
+	}
+	
+	/** Drop all but the given number of most recent events */
+	public synchronized void keepLast (int number) {
+		events = new ArrayList<Event>(events.subList(events.size()-number, events.size()));
+		// The eager graph holds the dropped events
+		builder = null;
+		columns = null;
+		columns_built = false;
 	}
 	
 	public boolean equals (Object other) {
@@ -32,6 +79,11 @@ public class Window {
 		return end < e.sec;
 	}
 	
+	/** All events up to the watermark are known */
+	public boolean expired (int watermark) {
+		return end <= watermark;
+	}
+	
 	public boolean contains (Partition p) {
 		return start <= p.start && p.end <= end;
 	}
@@ -2,6 +2,7 @@ package graph;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
 import event.*;
 
@@ -14,6 +15,8 @@ public class Graph {
 	public ArrayList<Node> first_nodes;
 	public ArrayList<Node> last_nodes;  
 	public int minPartitionNumber;
+	// Construct graphs with the last nodes indexed by partition key instead of scanning all last nodes for each event
+	public static boolean indexed = true;
 		
 	public Graph () {
 		nodes = new ArrayList<Node>();
@@ -42,83 +45,43 @@ public class Graph {
 		}
 	}
 	
-	public static Graph constructGraph (ArrayList<Event> events) {		
+	public static Graph constructGraph (List<Event> events) {
+		return constructGraph(events, Predicate.DEFAULT);
+	}
+	
+	/*** Graph of the given events connected by the given predicate ***/
+	public static Graph constructGraph (List<Event> events, Predicate predicate) {		
 		
-		Graph graph = new Graph();
-		int curr_sec = -1;
-				
+		GraphBuilder builder = GraphBuilder.create(predicate);
 		for (Event event : events) {
-			
-			//System.out.println("--------------" + event.id);
-			
-			// Update minimal partition number
-			if (curr_sec < event.sec) {
-				graph.minPartitionNumber++;
-				curr_sec = event.sec;
-			}
-			
-			// Create a new node
-			Node node = new Node(event);
-			
-			/*** Case I: This event starts a new sequence. It is a first and a last event. ***/
-			if (graph.last_nodes.isEmpty()) {
-				graph.first_nodes.add(node);
-				node.isFirst = true;
-				graph.last_nodes.add(node);				
-				//System.out.println(event.id + " starts a new sequence.");
-			} else {
-				
-				ArrayList<Node> new_last_nodes = new ArrayList<Node>();
-				ArrayList<Node> old_last_nodes = new ArrayList<Node>();
-								
-				for (Node last : graph.last_nodes) {		
-					
-					//System.out.println(" ------------------ \nthis " + event.id + " last " + last.event.id);
-			
-					/*** Case II: This event is compatible with the last event. Add an edge between last and this. ***/
-					if (last.isCompatible(node)) {
-						graph.connect(last,node);
-						if (!old_last_nodes.contains(last)) old_last_nodes.add(last);
-						if (!new_last_nodes.contains(node)) new_last_nodes.add(node);
-						//System.out.println(last.event.id + " is connected to " + event.id);
-						
-					} else {
-							
-						/*** Case III: This event is compatible with a previous event of the last event. Add an edge between previous and this. ***/
-						for (Node comp_node : last.previous) {
-							if (comp_node.event.isCompatible(event)) {
-								graph.connect(comp_node,node);
-								//System.out.println(comp_node.event.id + " is connected to " + event.id);
-							} 						
-						}
-					}
-				}
-				/*** Case I: This event is compatible with no previous event. Add this event to the last nodes. ***/
-				if (node.previous.isEmpty() && !graph.first_nodes.contains(node)) {
-					graph.first_nodes.add(node);							
-					node.isFirst = true;
-					//System.out.println(event.id + " starts a new sequence.");
-				}
-				if (!new_last_nodes.contains(node)) {
-					new_last_nodes.add(node);							
-				}					
-								
-				graph.last_nodes.removeAll(old_last_nodes);
-				graph.last_nodes.addAll(new_last_nodes);
-			}
-			// Add the new node to the graph
-			graph.nodes.add(node);
-			
-			int sec = node.event.sec;
-			ArrayList<Node> ns = (graph.events_per_second.containsKey(sec)) ? graph.events_per_second.get(sec) : new ArrayList<Node>();
-			ns.add(node);
-			graph.events_per_second.put(sec,ns);			
+			builder.add(event);
 		}
 		//for (Node node : graph.nodes) { System.out.println(node.toString()); }	
 		//System.out.println(graph.printEventNumberPerSecond());
-		return graph;
+		return builder.getGraph();
 	}	
 	
+	/*** Union of the given graphs that share no nodes ***/
+	public static Graph union (ArrayList<Graph> graphs) {
+		Graph graph = new Graph();
+		for (Graph part : graphs) {
+			graph.nodes.addAll(part.nodes);
+			graph.first_nodes.addAll(part.first_nodes);
+			graph.last_nodes.addAll(part.last_nodes);
+			graph.edgeNumber += part.edgeNumber;
+			for (int sec : part.events_per_second.keySet()) {
+				ArrayList<Node> ns = graph.events_per_second.get(sec);
+				if (ns == null) {
+					ns = new ArrayList<Node>();
+					graph.events_per_second.put(sec,ns);
+				}
+				ns.addAll(part.events_per_second.get(sec));
+			}
+		}
+		graph.minPartitionNumber = graph.events_per_second.size();
+		return graph;
+	}
+	
 	public String printEventNumberPerSecond() {
 		String result = "";
 		Set<Integer> keyset = this.events_per_second.keySet();
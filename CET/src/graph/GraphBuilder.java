@@ -0,0 +1,101 @@
+package graph;
+
+import java.util.ArrayList;
+import event.*;
+
+/**
+ * Graph that grows by one event at a time, so that the graph of a window can be constructed while the window is filling.
+ * Events must be added in time stamp order.
+ */
+public class GraphBuilder {
+	
+	public Graph graph;
+	Predicate predicate;
+	int curr_sec;
+	
+	public GraphBuilder (Predicate p) {
+		graph = new Graph();
+		predicate = p;
+		curr_sec = -1;
+	}
+	
+	/** Builder with the frontier indexed by partition key unless Graph.indexed is off */
+	public static GraphBuilder create (Predicate p) {
+		return (Graph.indexed) ? new IndexedGraphBuilder(p) : new GraphBuilder(p);
+	}
+	
+	/** Graph of the events added so far */
+	public Graph getGraph () {
+		return graph;
+	}
+	
+	/*** Add the given event to the graph ***/
+	public void add (Event event) {
+		
+		//System.out.println("--------------" + event.id);
+		
+		// Update minimal partition number
+		if (curr_sec < event.sec) {
+			graph.minPartitionNumber++;
+			curr_sec = event.sec;
+		}
+		
+		// Create a new node
+		Node node = new Node(event);
+		node.predicate = predicate;
+		
+		/*** Case I: This event starts a new sequence. It is a first and a last event. ***/
+		if (graph.last_nodes.isEmpty()) {
+			graph.first_nodes.add(node);
+			node.isFirst = true;
+			graph.last_nodes.add(node);				
+			//System.out.println(event.id + " starts a new sequence.");
+		} else {
+			
+			ArrayList<Node> new_last_nodes = new ArrayList<Node>();
+			ArrayList<Node> old_last_nodes = new ArrayList<Node>();
+							
+			for (Node last : graph.last_nodes) {		
+				
+				//System.out.println(" ------------------ \nthis " + event.id + " last " + last.event.id);
+		
+				/*** Case II: This event is compatible with the last event. Add an edge between last and this. ***/
+				if (last.isCompatible(node)) {
+					graph.connect(last,node);
+					if (!old_last_nodes.contains(last)) old_last_nodes.add(last);
+					if (!new_last_nodes.contains(node)) new_last_nodes.add(node);
+					//System.out.println(last.event.id + " is connected to " + event.id);
+					
+				} else {
+						
+					/*** Case III: This event is compatible with a previous event of the last event. Add an edge between previous and this. ***/
+					for (Node comp_node : last.previous) {
+						if (predicate.isCompatible(comp_node.event, event)) {
+							graph.connect(comp_node,node);
+							//System.out.println(comp_node.event.id + " is connected to " + event.id);
+						} 						
+					}
+				}
+			}
+			/*** Case I: This event is compatible with no previous event. Add this event to the last nodes. ***/
+			if (node.previous.isEmpty() && !graph.first_nodes.contains(node)) {
+				graph.first_nodes.add(node);							
+				node.isFirst = true;
+				//System.out.println(event.id + " starts a new sequence.");
+			}
+			if (!new_last_nodes.contains(node)) {
+				new_last_nodes.add(node);							
+			}					
+							
+			graph.last_nodes.removeAll(old_last_nodes);
+			graph.last_nodes.addAll(new_last_nodes);
+		}
+		// Add the new node to the graph
+		graph.nodes.add(node);
+		
+		int sec = node.event.sec;
+		ArrayList<Node> ns = (graph.events_per_second.containsKey(sec)) ? graph.events_per_second.get(sec) : new ArrayList<Node>();
+		ns.add(node);
+		graph.events_per_second.put(sec,ns);
+	}
+}
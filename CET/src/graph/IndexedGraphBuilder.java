@@ -0,0 +1,103 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import event.*;
+
+/**
+ * Graph builder that indexes the last nodes by the partition key of their events.
+ * Every predicate requires equal partition keys, so a new event is only compared with the last nodes of its key
+ * and their previous nodes. Membership is checked in identity hash sets instead of lists.
+ * The graph is the same as the one of GraphBuilder, including the order of nodes and edges.
+ */
+public class IndexedGraphBuilder extends GraphBuilder {
+
+	// Last nodes per partition key and of all keys, both in the order of the last nodes of GraphBuilder
+	HashMap<Long,LinkedHashSet<Node>> frontier;
+	LinkedHashSet<Node> last_nodes;
+
+	public IndexedGraphBuilder (Predicate p) {
+		super(p);
+		frontier = new HashMap<Long,LinkedHashSet<Node>>();
+		last_nodes = new LinkedHashSet<Node>();
+	}
+
+	/*** Add the given event to the graph ***/
+	public void add (Event event) {
+
+		// Update minimal partition number
+		if (curr_sec < event.sec) {
+			graph.minPartitionNumber++;
+			curr_sec = event.sec;
+		}
+
+		// Create a new node
+		Node node = new Node(event);
+		node.predicate = predicate;
+
+		long key = event.getPartitionKey();
+		LinkedHashSet<Node> last_of_key = frontier.get(key);
+		if (last_of_key == null) {
+			last_of_key = new LinkedHashSet<Node>();
+			frontier.put(key, last_of_key);
+		}
+
+		// Last nodes that this event follows and nodes that this event is connected to
+		ArrayList<Node> old_last_nodes = new ArrayList<Node>();
+		HashSet<Node> connected = new HashSet<Node>();
+
+		for (Node last : last_of_key) {
+
+			/*** Case II: This event is compatible with the last event. Add an edge between last and this. ***/
+			if (last.isCompatible(node)) {
+				if (connected.add(last)) connect(last, node);
+				old_last_nodes.add(last);
+			} else {
+
+				/*** Case III: This event is compatible with a previous event of the last event. Add an edge between previous and this. ***/
+				for (Node comp_node : last.previous) {
+					if (!connected.contains(comp_node) && predicate.isCompatible(comp_node.event, event)) {
+						connected.add(comp_node);
+						connect(comp_node, node);
+					}
+				}
+			}
+		}
+		/*** Case I: This event is compatible with no previous event. It starts a new sequence. ***/
+		if (node.previous.isEmpty()) {
+			graph.first_nodes.add(node);
+			node.isFirst = true;
+		}
+		/*** This event replaces the last nodes it follows ***/
+		for (Node last : old_last_nodes) {
+			last_of_key.remove(last);
+			last_nodes.remove(last);
+		}
+		last_of_key.add(node);
+		last_nodes.add(node);
+
+		// Add the new node to the graph
+		graph.nodes.add(node);
+
+		ArrayList<Node> ns = graph.events_per_second.get(event.sec);
+		if (ns == null) {
+			ns = new ArrayList<Node>();
+			graph.events_per_second.put(event.sec,ns);
+		}
+		ns.add(node);
+	}
+
+	/** The new node has no edges yet, so the edge cannot exist */
+	void connect (Node first, Node second) {
+		first.following.add(second);
+		second.previous.add(first);
+		graph.edgeNumber++;
+	}
+
+	public Graph getGraph () {
+		graph.last_nodes = new ArrayList<Node>(last_nodes);
+		return graph;
+	}
+}
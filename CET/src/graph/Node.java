@@ -12,6 +12,8 @@ public class Node {
 	public ArrayList<Node> following;
 	public ArrayList<EventTrend> results; 
 	public boolean isFirst;
+	// Compatibility predicate of the query of this node
+	public Predicate predicate;
 	
 	public Node (Event e) {
 		event = e;
@@ -19,10 +21,11 @@ public class Node {
 		following = new ArrayList<Node>();
 		results = new ArrayList<EventTrend>();
 		isFirst = false;
+		predicate = Predicate.DEFAULT;
 	}
 	
 	public boolean isCompatible(Node other) {
-		return this.event.isCompatible(other.event);
+		return predicate.isCompatible(this.event, other.event);
 	}
 	
 	public boolean equals(Node other) {
@@ -3,6 +3,7 @@ package graph;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import optimizer.Partitioning;
 import event.*;
@@ -35,7 +36,7 @@ public class Partition extends Graph {
 	}
 	
 	/*** Returns a minimal partition for events with the same time stamp ***/
-	public static Partition getMinPartition (int sec, ArrayList<Event> batch) {
+	public static Partition getMinPartition (int sec, List<Event> batch) {
 		ArrayList<Node> nodes = new ArrayList<Node>();
 		for (Event e : batch) {
 			Node n = new Node(e);
@@ -67,6 +68,11 @@ public class Partition extends Graph {
 		return cost;
 	}
 	
+	/*** Natural logarithm of the CPU cost of this partition, which stays finite for large partitions ***/
+	public double getLogCPUcost () {
+		return Partitioning.logSum(Math.log(edgeNumber), vertexNumber/3.0 * Math.log(3));
+	}
+	
 	/*** Get memory cost of this partition ***/
 	public double getMEMcost () {
 		double exp = vertexNumber/new Double(3);
@@ -76,6 +82,11 @@ public class Partition extends Graph {
 		return cost;
 	}
 	
+	/*** Natural logarithm of the memory cost of this partition ***/
+	public double getLogMEMcost () {
+		return Math.log(vertexNumber) + vertexNumber/3.0 * Math.log(3);
+	}
+	
 	/*** Get actual memory requirement of this partition ***/
 	public int getCETlength () {
 		int count = 0;
@@ -0,0 +1,76 @@
+package iogenerator;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import event.*;
+
+/**
+ * Convert a text input file into the binary event format.
+ *
+ * Example parameters:
+ * -type stock -in ../../../Dropbox/DataSets/Stock/sorted.txt -out ../../../Dropbox/DataSets/Stock/sorted.bin
+ */
+public class BinaryFileConverter {
+
+	public static void main (String[] args) {
+
+		String type = "stock";
+		String input = "";
+		String output = "";
+		for (int i=0; i<args.length; i++){
+			if (args[i].equals("-type")) 	type = args[++i];
+			if (args[i].equals("-in")) 		input = args[++i];
+			if (args[i].equals("-out")) 	output = args[++i];
+		}
+		try {
+			long start = System.currentTimeMillis();
+			long count = convert(input, output, type);
+			long duration = System.currentTimeMillis() - start;
+			System.out.println("Converted " + count + " " + type + " events in " + duration + " ms.");
+		} catch (IOException e) { e.printStackTrace(); }
+	}
+
+	public static long convert (String input, String output, String type) throws IOException {
+
+		BinaryFormat format = BinaryFormat.getFormat(type);
+
+		RandomAccessFile file = new RandomAccessFile(output, "rw");
+		file.setLength(0);
+		FileChannel channel = file.getChannel();
+
+		/*** Header with placeholders for the record number and the dictionary offset ***/
+		channel.write(ByteBuffer.wrap(format.getHeader()));
+
+		/*** Records ***/
+		EventSource source = new TextFileSource(input, type);
+		ByteBuffer block = ByteBuffer.allocateDirect(8192 * format.record_size);
+		Event event = source.next();
+		while (event != null) {
+			format.encode(event, block);
+			format.record_number++;
+			if (block.remaining() < format.record_size) {
+				block.flip();
+				while (block.hasRemaining()) channel.write(block);
+				block.clear();
+			}
+			event = source.next();
+		}
+		block.flip();
+		while (block.hasRemaining()) channel.write(block);
+		source.close();
+
+		/*** Dictionary ***/
+		format.dictionary_offset = channel.position();
+		file.seek(format.dictionary_offset);
+		format.writeDictionary(file);
+
+		/*** Final header ***/
+		file.seek(0);
+		file.write(format.getHeader());
+		file.close();
+
+		return format.record_number;
+	}
+}
@@ -4,14 +4,21 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import event.*;
+import graph.Graph;
 import scheduler.*;
+import transaction.*;
  
 public class Main {
 	
@@ -20,6 +27,24 @@ public class Main {
 	 * -type check -path src/iofiles/ -file stream.txt -to 120 -algo tcet
 	 * -type activity -path ../../../Dropbox/DataSets/PhysicalActivity/ -file all.dat -to 60 -algo tcet
 	 * -type stock -path ../../../Dropbox/DataSets/Stock/ -file sorted.txt -to 60 -algo tcet
+	 * -type stock -path ../../../Dropbox/DataSets/Stock/ -file nyse.txt,nasdaq.txt -to 60 -algo tcet
+	 * -type stock -path ../../../Dropbox/DataSets/Stock/ -file sorted.txt.gz -to 60 -algo tcet
+	 * -type check -source tcp:9999 -to 1800 -algo tcet
+	 * -type check -source gen:1800:1:3 -to 1800 -algo tcet
+	 * -type stock -source gen:600:2:20 -to 300 -wl 30 -ws 30 -algo tcet
+	 * -type check -path src/iofiles/ -file stream.txt -to 120 -algo tcet -speedup 60
+	 * -type check -source tcp:9999 -unbounded 1 -wl 60 -ws 30 -algo tcet
+	 * -type stock -path ../../../Dropbox/DataSets/Stock/ -file sorted.txt -to 60 -algo auto -mem 1000000
+	 * -type activity -path ../../../Dropbox/DataSets/PhysicalActivity/ -file all.dat -to 60 -algo mcet -parallelism 8
+	 * -type check -path src/iofiles/ -file stream.txt -to 120 -wl 60 -ws 30 -algo hcet -search 5 -overlap 1 -virtual 1
+	 * -type check -path src/iofiles/ -file stream.txt -to 1800 -wl 60 -ws 10 -algo tcet -speedup 100 -sla 50
+	 * -type check -path src/iofiles/ -file stream.txt -to 1800 -wl 60 -ws 10 -algo tcet -speedup 100 -shed 50 -shed_policy truncate
+	 * -type stock -path ../../../Dropbox/DataSets/Stock/ -file sorted.txt -to 60 -algo tcet -keys 1
+	 * -type stock -path ../../../Dropbox/DataSets/Stock/ -file sorted.txt -to 60 -algo tcet -query decreasing -query any:30:10:mcet
+	 * -type check -path src/iofiles/ -file stream.txt -to 1800 -wl 60 -ws 10 -algo tcet -batch adaptive:5 -latency 1
+	 * -type check -path src/iofiles/ -file stream.txt -to 1800 -wl 60 -ws 10 -algo tcet -speedup 100 -eager 1
+	 * -type stock -path ../../../Dropbox/DataSets/Stock/ -file sorted.txt -to 600 -wl 60 -ws 10 -algo hcet -search 5 -pipeline 2:2:8:1:16
+	 * -type check -path src/iofiles/ -file stream.txt -to 119 -wl 59 -ws 30 -algo hcet -search 5 -overlap 1 -pipeline 2:0:0:1
 	 */
 	public static void main (String[] args) { 
 		
@@ -40,9 +65,24 @@ public class Main {
 		String inputfile = "stream1.txt";
 		String outputfile = "sequences.txt";		
 		String type = "stock";
+		String source = "file";
 		
 		boolean realtime = false;
+		double speedup = 0;
+		int events_per_second = 0;
+		boolean latency = false;
+		boolean mapped = false;
+		int queue_capacity = 0;
+		int parse_threads = 1;
+		int allowed_lateness = -1;
+		int reorder_capacity = 1000000;
 		boolean overlap = false;
+		boolean use_panes = false;
+		boolean partition_by_key = false;
+		boolean eager = false;
+		boolean indexed = true;
+		String pipeline_spec = "";
+		boolean unbounded = false;
 		int firstsec = 0;
 	    int lastsec = 0;
 		int window_length = 0;
@@ -51,14 +91,38 @@ public class Main {
 		double memory_limit = Double.MAX_VALUE;
 		int cut_number = -1;
 		int search_algorithm = 0;
+		int parallelism = 0;
+		boolean virtual = false;
+		int sla = -1;
+		int shed = -1;
+		String shed_policy = "count";
+		String batch_policy = "random";
+		String predicate = "default";
+		ArrayList<String> queries = new ArrayList<String>();
 				
 		// Read input parameters
 	    for (int i=0; i<args.length; i++){
 	    	if (args[i].equals("-type")) 		type = args[++i];
 			if (args[i].equals("-path")) 		path = args[++i];
 			if (args[i].equals("-file")) 		inputfile = args[++i];
+			if (args[i].equals("-source")) 		source = args[++i];
 			if (args[i].equals("-realtime")) 	realtime = Integer.parseInt(args[++i]) == 1;
+			if (args[i].equals("-batch")) 		batch_policy = args[++i];
+			if (args[i].equals("-speedup")) 	speedup = Double.parseDouble(args[++i]);
+			if (args[i].equals("-eps")) 		events_per_second = Integer.parseInt(args[++i]);
+			if (args[i].equals("-latency")) 	latency = Integer.parseInt(args[++i]) == 1;
+			if (args[i].equals("-mmap")) 		mapped = Integer.parseInt(args[++i]) == 1;
+			if (args[i].equals("-queue")) 		queue_capacity = Integer.parseInt(args[++i]);
+			if (args[i].equals("-parse")) 		parse_threads = Integer.parseInt(args[++i]);
+			if (args[i].equals("-lateness")) 	allowed_lateness = Integer.parseInt(args[++i]);
+			if (args[i].equals("-reorder")) 	reorder_capacity = Integer.parseInt(args[++i]);
+			if (args[i].equals("-panes")) 		use_panes = Integer.parseInt(args[++i]) == 1;
+			if (args[i].equals("-pipeline")) 	pipeline_spec = args[++i];
+			if (args[i].equals("-index")) 		indexed = Integer.parseInt(args[++i]) == 1;
+			if (args[i].equals("-eager")) 		eager = Integer.parseInt(args[++i]) == 1;
+			if (args[i].equals("-keys")) 		partition_by_key = Integer.parseInt(args[++i]) == 1;
 			if (args[i].equals("-overlap")) 	overlap = Integer.parseInt(args[++i]) == 1;
+			if (args[i].equals("-unbounded")) 	unbounded = Integer.parseInt(args[++i]) == 1;
 			if (args[i].equals("-from")) 		firstsec = Integer.parseInt(args[++i]);
 			if (args[i].equals("-to")) 			lastsec = Integer.parseInt(args[++i]);
 			if (args[i].equals("-wl")) 			window_length = Integer.parseInt(args[++i]);
@@ -67,8 +131,46 @@ public class Main {
 			if (args[i].equals("-mem")) 		memory_limit = Double.parseDouble(args[++i]);
 			if (args[i].equals("-cut")) 		cut_number = Integer.parseInt(args[++i]);
 			if (args[i].equals("-search")) 		search_algorithm = Integer.parseInt(args[++i]);
+			if (args[i].equals("-parallelism")) parallelism = Integer.parseInt(args[++i]);
+			if (args[i].equals("-virtual")) 	virtual = Integer.parseInt(args[++i]) == 1;
+			if (args[i].equals("-sla")) 		sla = Integer.parseInt(args[++i]);
+			if (args[i].equals("-shed")) 		shed = Integer.parseInt(args[++i]);
+			if (args[i].equals("-shed_policy")) shed_policy = args[++i];
+			if (args[i].equals("-predicate")) 	predicate = args[++i];
+			if (args[i].equals("-query")) 		queries.add(args[++i]);
 		}
-	    String input = path + inputfile;
+	    // A comma separated list of input files is merged by time stamp
+	    String input = "";
+	    for (String file : inputfile.split(",")) {
+	    	input += ((input.isEmpty()) ? "" : ",") + path + file;
+	    }
+	    // Replay and deadlines report the latency of the windows
+	    if (speedup > 0 || events_per_second > 0 || sla >= 0) latency = true;
+	    // Sockets and generators replace the input files
+	    if (!source.equals("file")) input = source;
+	    // Generators are created up front so that wrong parameters are reported instead of failing in the driver thread
+	    GeneratorEventSource generator = null;
+	    if (source.startsWith("gen:")) {
+	    	try {
+	    		generator = GeneratorEventSource.parse(source, type);
+	    	} catch (IllegalArgumentException e) {
+	    		System.err.println(e.getMessage());
+	    		return;
+	    	}
+	    }
+	    // Unbounded mode runs until the input ends and needs the window length and slide
+	    if (unbounded) {
+	    	if (window_length == 0 || window_slide == 0) {
+	    		System.err.println("Unbounded mode requires -wl and -ws");
+	    		return;
+	    	}
+	    	lastsec = Integer.MAX_VALUE;
+	    }
+	    // Windows that wait for the partitions of other windows need a thread per transaction in the plan and compute stages
+	    if (overlap && !pipeline_spec.isEmpty() && !Pipeline.allowsWaiting(pipeline_spec)) {
+	    	System.err.println("Overlap requires 0 plan and compute threads in the pipeline, e.g. -pipeline 2:0:0:1");
+	    	return;
+	    }
 	    OutputFileGenerator output = new OutputFileGenerator(path+outputfile); 
 	    if (window_length == 0 && window_slide == 0) {
 	    	window_length = lastsec+1;
@@ -77,56 +179,146 @@ public class Main {
 	    
 	    // Print input parameters
 	    System.out.println(	"Algorithm: " + algorithm +
-	    					"\nInput file: " + inputfile +
+	    					"\nInput: " + ((source.equals("file")) ? inputfile : source) +
 	    					"\nType: " + type +
 	    					"\nReal time: " + realtime +
+	    					"\nDriver batches: " + batch_policy +
+	    					"\nReplay: " + ((speedup > 0 || events_per_second > 0) ? "speed-up " + speedup + ", " + events_per_second + " events/sec" : "off") +
+	    					"\nLatency measurement: " + latency +
+	    					"\nOverload control: " + ((shed >= 0) ? shed_policy + " beyond a latency budget of " + shed + " ms" : "off") +
+	    					"\nMemory-mapped input: " + mapped +
+	    					"\nParser threads: " + parse_threads +
+	    					"\nAllowed lateness: " + ((allowed_lateness >= 0) ? allowed_lateness + " sec, reorder buffer of " + reorder_capacity + " events" : "sorted input") +
+	    					"\nEvent queue capacity: " + ((queue_capacity > 0) ? queue_capacity : "unbounded") +
 	    					"\nOverlapping window: " + overlap +
-	    					"\nStream from " + firstsec + " to " + lastsec +
+	    					"\nKey-partitioned graphs: " + partition_by_key +
+	    					"\nEager graph construction: " + eager +
+	    					"\nIndexed graph construction: " + indexed +
+	    					"\nPanes: " + ((use_panes) ? "width " + Pane.getWidth(window_length, window_slide) : "off") +
+	    					"\nStream from " + firstsec + " to " + ((unbounded) ? "the end of the input" : lastsec) +
 	    					"\nWindow length: " + window_length + 
 							"\nWindow slide: " + window_slide +
 							"\nMemory limit: " + memory_limit +
 							"\nCut number: " + cut_number +
 							"\nSearch algorithm: " + search_algorithm +
+							"\nPredicate: " + Predicate.get(predicate) +
+							"\nFurther queries: " + ((queries.isEmpty()) ? "none" : queries.toString()) +
+							"\nExecutor: " + ((!pipeline_spec.isEmpty()) ? "pipeline of build:plan:compute:output threads " + pipeline_spec : (sla >= 0) ? "earliest deadline first with a latency SLA of " + sla + " ms" : (virtual) ? "one virtual thread per window" : (parallelism > 0) ? "fork join pool of parallelism " + parallelism : "fixed thread pool of 10 threads") +
 							"\n----------------------------------");
 
+		Graph.indexed = indexed;
+		
 		/*** SHARED DATA STRUCTURES ***/		
 		AtomicInteger driverProgress = new AtomicInteger(-1);	
-		EventQueue eventqueue = new EventQueue(driverProgress);						
-		CountDownLatch done = new CountDownLatch(1);
+		EventQueue eventqueue = (queue_capacity > 0) ? new EventQueue(driverProgress, queue_capacity) : new EventQueue(driverProgress);						
+		CountDownLatch done = new CountDownLatch(1 + queries.size());
 		long startOfSimulation = System.currentTimeMillis();
 		AtomicInteger eventNumber = new AtomicInteger(0);
 		AtomicLong total_cpu = new AtomicLong(0);	
 		AtomicInteger total_memory = new AtomicInteger(0);
 		
 		/*** EXECUTORS ***/
-		int window_number = (lastsec-firstsec)/window_slide + 1;
-		ExecutorService executor = Executors.newFixedThreadPool(10);
+		ExecutorService executor;
+		if (sla >= 0) {
+			// Earliest deadline first: the queue of the pool orders the waiting windows by their deadlines
+			int threads = (parallelism > 0) ? parallelism : 10;
+			executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>());
+		} else {
+		if (virtual) {
+			executor = newVirtualThreadExecutor();
+		} else {
+			executor = (parallelism > 0) ? new ForkJoinPool(parallelism) : Executors.newFixedThreadPool(10);
+		}}
 			
 		/*** Create and start the event driver and the scheduler threads.
 		 *   Driver reads from the file and writes into the event queue.
 		 *   Scheduler reads from the event queue and submits event batches to the executor. ***/
 		EventDriver driver = new EventDriver (input, type, realtime, lastsec, eventqueue, startOfSimulation, driverProgress, eventNumber);				
+		driver.mapped = mapped;
+		driver.parse_threads = parse_threads;
+		driver.allowed_lateness = allowed_lateness;
+		driver.reorder_capacity = reorder_capacity;
+		driver.speedup = speedup;
+		driver.events_per_second = events_per_second;
+		driver.unbounded = unbounded;
+		driver.batching = BatchPolicy.parse(batch_policy);
+		driver.source = generator;
 				
-		Scheduler scheduler = new Scheduler (eventqueue, firstsec, lastsec, window_length, window_slide, algorithm, memory_limit, cut_number, search_algorithm, 
-				executor, driverProgress, done, total_cpu, total_memory, output, overlap);		
+		/*** Create a scheduler per query. The first query reads the event queue of the driver, 
+		 *   further queries subscribe to it such that the input is parsed once.
+		 *   A query is given as predicate[:window length:window slide[:algorithm]]. ***/
+		ArrayList<Scheduler> schedulers = new ArrayList<Scheduler>();
+		LatencyMonitor latency_monitor = (latency) ? new LatencyMonitor() : null;
+		if (sla >= 0) latency_monitor.sla = sla * 1000000L;
+		OverloadController overload = (shed >= 0) ? new OverloadController(shed, OverloadController.getPolicy(shed_policy)) : null;
+		Pipeline pipeline = (pipeline_spec.isEmpty()) ? null : Pipeline.parse(pipeline_spec);
+		int window_number = 0;
+		for (int i=0; i<=queries.size(); i++) {
+			String[] spec = (i == 0) ? new String[] { predicate } : queries.get(i-1).split(":");
+			EventQueue queue = eventqueue;
+			if (i > 0) {
+				queue = (queue_capacity > 0) ? new EventQueue(driverProgress, queue_capacity) : new EventQueue(driverProgress);
+				eventqueue.subscribe(queue);
+			}
+			int wl = (spec.length > 2) ? Integer.parseInt(spec[1]) : window_length;
+			int ws = (spec.length > 2) ? Integer.parseInt(spec[2]) : window_slide;
+			String algo = (spec.length > 3) ? spec[3] : algorithm;
+			
+			Scheduler scheduler = new Scheduler (queue, firstsec, lastsec, wl, ws, algo, memory_limit, cut_number, search_algorithm, 
+					executor, driverProgress, done, total_cpu, total_memory, output, overlap);		
+			scheduler.latency = latency_monitor;
+			if (sla >= 0) scheduler.sla = sla * 1000000L;
+			scheduler.overload = overload;
+			scheduler.use_panes = use_panes;
+			scheduler.partition_by_key = partition_by_key;
+			scheduler.eager = eager;
+			scheduler.pipeline = pipeline;
+			scheduler.unbounded = unbounded;
+			if (i > 0) scheduler.query = "q" + i;
+			scheduler.predicate = Predicate.get(spec[0]);
+			schedulers.add(scheduler);
+			if (!unbounded) window_number += (lastsec-firstsec)/ws + 1;
+		}
 		
 		Thread prodThread = new Thread(driver);
 		prodThread.setPriority(10);
 		prodThread.start();
 		
-		Thread consThread = new Thread(scheduler);
-		consThread.setPriority(10);
-		consThread.start();		
+		for (Scheduler scheduler : schedulers) {
+			Thread consThread = new Thread(scheduler);
+			consThread.setPriority(10);
+			consThread.start();
+		}
 				
 		/*** Wait till all input events are processed and terminate the executor ***/
 		done.await();		
 		executor.shutdown();	
+		if (pipeline != null) pipeline.shutdown();
 		output.file.close();
+		if (unbounded) {
+			for (Scheduler scheduler : schedulers) window_number += scheduler.created_windows;
+			window_number = Math.max(window_number, 1);
+		}
 		
 		System.out.println(	"\nAvg CPU: " + total_cpu.get()/window_number +				
 							"\nAvg MEM: " + total_memory.get()/window_number + "\n");
+		if (latency) System.out.println(latency_monitor.toString() + "\n");
+		if (shed >= 0) System.out.println(overload.toString() + "\n");
 				
 		} catch (InterruptedException e) { e.printStackTrace(); }
 		  catch (IOException e1) { e1.printStackTrace(); }
 	}	
+	
+	/** 
+	 * Executor that runs each window on its own virtual thread, so that windows waiting for shared partitions are cheap.
+	 * Virtual threads need Java 21 and are looked up by reflection, older runtimes get a thread per window from a cached pool.
+	 */
+	static ExecutorService newVirtualThreadExecutor () {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (Exception e) {
+			System.out.println("Virtual threads are not available, windows run on a cached thread pool.");
+			return Executors.newCachedThreadPool();
+		}
+	}
 }
\ No newline at end of file
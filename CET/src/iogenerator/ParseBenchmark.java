@@ -0,0 +1,99 @@
+package iogenerator;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+import event.*;
+
+/**
+ * Compare the parse rate of the split based parsers with the cursor based parsers
+ * on each of the three input formats.
+ *
+ * Example parameters: -lines 1000000 -rounds 5
+ */
+public class ParseBenchmark {
+
+	public static void main (String[] args) {
+
+		int line_number = 1000000;
+		int rounds = 5;
+		for (int i=0; i<args.length; i++){
+			if (args[i].equals("-lines")) 	line_number = Integer.parseInt(args[++i]);
+			if (args[i].equals("-rounds")) 	rounds = Integer.parseInt(args[++i]);
+		}
+		String[] types = {"check", "activity", "stock"};
+
+		for (String type : types) {
+			ArrayList<String> lines = generate(type, line_number);
+			System.out.println("----------------------------------\nType: " + type);
+
+			// Warm up both parsers before measuring
+			run(lines, type, false);
+			run(lines, type, true);
+
+			for (int round=0; round<rounds; round++) {
+				measure(lines, type, false);
+				measure(lines, type, true);
+			}
+		}
+	}
+
+	/*** Print lines per second and garbage collections of one round ***/
+	static void measure (ArrayList<String> lines, String type, boolean cursor) {
+		long gc_before = getCollectionCount();
+		long start = System.nanoTime();
+		long checksum = run(lines, type, cursor);
+		long duration = System.nanoTime() - start;
+		long gc_after = getCollectionCount();
+
+		double rate = lines.size() / (duration / 1000000000.0);
+		System.out.println((cursor ? "Cursor: " : "Split:  ") +
+				Math.round(rate) + " lines/sec, " +
+				(gc_after - gc_before) + " collections, checksum " + checksum);
+	}
+
+	/*** Parse all lines and return a checksum such that parsing cannot be optimized away ***/
+	static long run (ArrayList<String> lines, String type, boolean cursor) {
+		long checksum = 0;
+		CharCursor c = new CharCursor();
+		for (String line : lines) {
+			Event event = (cursor) ? Event.parse(c.reset(line), type) : Event.parse(line, type);
+			checksum += event.sec + event.id;
+		}
+		return checksum;
+	}
+
+	static long getCollectionCount () {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += gc.getCollectionCount();
+		}
+		return count;
+	}
+
+	/*** Generate lines in the format of the given type ***/
+	static ArrayList<String> generate (String type, int line_number) {
+
+		ArrayList<String> lines = new ArrayList<String>();
+		Random random = new Random(0);
+		String[] companies = {"AAPL", "MSFT", "IBM", "GOOG", "ORCL", "INTC"};
+
+		for (int id=1; id<=line_number; id++) {
+			int sec = id / 10;
+			String line;
+			if (type.equals("check")) {
+				line = sec + "," + id + "," + (random.nextInt(3)+1);
+			} else {
+			if (type.equals("activity")) {
+				line = (sec*100) + "," + sec + "," + (id%9+101) + "," + (random.nextInt(100)+60) +
+						",1,32.5,30.375,-9.1,"  + (random.nextInt(24)+1);
+			} else {
+				line = id + ", " + sec + ", " + (random.nextInt(11)+1) + ", " + companies[random.nextInt(companies.length)] + ", " +
+						(random.nextInt(50000)/100.0) + ", " + random.nextInt(10000) + ", " + (random.nextBoolean() ? "B" : "S");
+			}}
+			lines.add(line);
+		}
+		return lines;
+	}
+}
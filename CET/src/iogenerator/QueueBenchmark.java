@@ -0,0 +1,124 @@
+package iogenerator;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.atomic.AtomicInteger;
+import event.*;
+
+/**
+ * Compare the unbounded event queue with the bounded ring buffer.
+ * A driver thread puts events into the queue as fast as it can,
+ * a scheduler thread polls them slide by slide and spends some work on each event.
+ * Throughput, garbage collections and peak heap usage are printed per run.
+ *
+ * Example parameters: -events 20000000 -capacity 65536 -work 20 -rounds 3
+ */
+public class QueueBenchmark {
+
+	public static void main (String[] args) throws InterruptedException {
+
+		int event_number = 20000000;
+		int capacity = 65536;
+		int work = 20;
+		int rounds = 3;
+		for (int i=0; i<args.length; i++){
+			if (args[i].equals("-events")) 		event_number = Integer.parseInt(args[++i]);
+			if (args[i].equals("-capacity")) 	capacity = Integer.parseInt(args[++i]);
+			if (args[i].equals("-work")) 		work = Integer.parseInt(args[++i]);
+			if (args[i].equals("-rounds")) 		rounds = Integer.parseInt(args[++i]);
+		}
+		for (int round=0; round<rounds; round++) {
+			measure(event_number, 0, work);
+			measure(event_number, capacity, work);
+		}
+	}
+
+	static void measure (final int event_number, int capacity, final int work) throws InterruptedException {
+
+		AtomicInteger driverProgress = new AtomicInteger(-1);
+		final EventQueue eventqueue = (capacity > 0) ? new EventQueue(driverProgress, capacity) : new EventQueue(driverProgress);
+		final int events_per_second = 1000;
+		final int last_sec = event_number / events_per_second;
+		final long[] checksum = new long[1];
+
+		System.gc();
+		resetPeakUsage();
+		long gc_count = getCollectionCount();
+		long gc_time = getCollectionTime();
+		long start = System.nanoTime();
+
+		/*** Driver ***/
+		Thread driver = new Thread(new Runnable() {
+			public void run() {
+				int curr_sec = 0;
+				for (int id=0; id<event_number; id++) {
+					Event event = new CheckEvent(id/events_per_second, id, 1);
+					eventqueue.add(event);
+					if (curr_sec < event.sec) {
+						eventqueue.setDriverProgress(curr_sec);
+						curr_sec = event.sec;
+					}
+				}
+				eventqueue.setDriverProgress(Integer.MAX_VALUE);
+			}
+		});
+
+		/*** Scheduler ***/
+		Thread scheduler = new Thread(new Runnable() {
+			public void run() {
+				int progress = 0;
+				long sum = 0;
+				while (progress <= last_sec) {
+					boolean slide_complete = eventqueue.getDriverProgressOrEvents(progress);
+					Event event = eventqueue.peek();
+					while (event != null && event.sec <= progress) {
+						Event e = eventqueue.poll();
+						for (int i=0; i<work; i++) sum += (e.id ^ i) % 7;
+						event = eventqueue.peek();
+					}
+					if (slide_complete) progress++;
+				}
+				checksum[0] = sum;
+			}
+		});
+		driver.start();
+		scheduler.start();
+		driver.join();
+		scheduler.join();
+
+		long duration = System.nanoTime() - start;
+		double rate = event_number / (duration / 1000000000.0);
+		System.out.println(((capacity > 0) ? "Ring buffer of " + capacity : "Unbounded queue") +
+				": " + Math.round(rate) + " events/sec, " +
+				(getCollectionCount() - gc_count) + " collections in " + (getCollectionTime() - gc_time) + " ms, " +
+				"peak heap " + getPeakUsage()/(1024*1024) + " MB, checksum " + checksum[0]);
+	}
+
+	static long getCollectionCount () {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) count += gc.getCollectionCount();
+		return count;
+	}
+
+	static long getCollectionTime () {
+		long time = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) time += gc.getCollectionTime();
+		return time;
+	}
+
+	static void resetPeakUsage () {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+		}
+	}
+
+	static long getPeakUsage () {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+		}
+		return peak;
+	}
+}
@@ -0,0 +1,79 @@
+package iogenerator;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Send an input file to a running Main with a socket source, the way a feed delivers events.
+ * Lines are sent as fast as possible or paced to the given number of lines per second.
+ *
+ * Example parameters:
+ * -port 9999 -file src/iofiles/stream.txt -rate 100000
+ * Matching Main parameters:
+ * -type check -source tcp:9999 -to 1800 -algo tcet
+ */
+public class StreamSender {
+
+	public static void main (String[] args) {
+
+		int port = 9999;
+		String filename = "";
+		int rate = 0;
+		for (int i=0; i<args.length; i++){
+			if (args[i].equals("-port")) 	port = Integer.parseInt(args[++i]);
+			if (args[i].equals("-file")) 	filename = args[++i];
+			if (args[i].equals("-rate")) 	rate = Integer.parseInt(args[++i]);
+		}
+		try {
+			/*** Connect to the engine ***/
+			SocketChannel channel = null;
+			for (int attempt=0; channel == null; attempt++) {
+				try {
+					channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+				} catch (IOException e) {
+					if (attempt == 100) throw e;
+					try { Thread.sleep(100); } catch (InterruptedException ie) { ie.printStackTrace(); }
+				}
+			}
+			RandomAccessFile file = new RandomAccessFile(filename, "r");
+			FileChannel input = file.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+			long start = System.nanoTime();
+			long line_number = 0;
+			long byte_number = 0;
+
+			/*** Send the file block by block ***/
+			while (input.read(buffer) > 0) {
+				buffer.flip();
+				for (int i=buffer.position(); i<buffer.limit(); i++) {
+					if (buffer.get(i) == '\n') line_number++;
+				}
+				byte_number += buffer.remaining();
+				while (buffer.hasRemaining()) channel.write(buffer);
+				buffer.clear();
+
+				// Pace the sender to the given rate
+				if (rate > 0) {
+					long due = start + line_number * 1000000000L / rate;
+					long wait = due - System.nanoTime();
+					if (wait > 0) {
+						try { Thread.sleep(wait / 1000000, (int) (wait % 1000000)); } catch (InterruptedException e) { e.printStackTrace(); }
+					}
+				}
+			}
+			channel.close();
+			file.close();
+
+			double duration = (System.nanoTime() - start) / 1000000000.0;
+			System.out.println("Sent " + line_number + " lines (" + byte_number + " bytes) in " + duration + " sec: " +
+					Math.round(line_number/duration) + " lines/sec.");
+
+		} catch (IOException e) { e.printStackTrace(); }
+	}
+}
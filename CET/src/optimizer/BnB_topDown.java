@@ -3,6 +3,7 @@ package optimizer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import event.*;
 import graph.*;
 
@@ -12,7 +13,7 @@ public class BnB_topDown extends Partitioner {
 		super(w);
 	}
 	
-	public Partitioning getPartitioning (ArrayList<Event> batch, double memory_limit) {
+	public Partitioning getPartitioning (List<Event> batch, double memory_limit) {
 		
 		// Set local variables
 		LinkedList<CutSet> heap = new LinkedList<CutSet>();
@@ -28,7 +29,7 @@ public class BnB_topDown extends Partitioner {
 		int level = getMinNumberOfRequiredPartitions_walkDown(batch,memory_limit);
 				
 		// Get the graph and its events per second 
-		Partitioning max_partitioning = Partitioning.getPartitioningWithMaxPartition(batch);
+		Partitioning max_partitioning = Partitioning.getPartitioningWithMaxPartition(batch, predicate);
 		Partition max_partition = max_partitioning.partitions.get(0);
 		int vertex_number = max_partition.vertexNumber;
 		if (level == vertex_number) {
@@ -107,7 +108,7 @@ public class BnB_topDown extends Partitioner {
 	}
 	
 	/*** Get minimal number of required partitions walking the search space top down ***/
-	public int getMinNumberOfRequiredPartitions_walkDown(ArrayList<Event> batch, double memory_limit) {	
+	public int getMinNumberOfRequiredPartitions_walkDown(List<Event> batch, double memory_limit) {	
 		
 		int event_number = batch.size();
 		
@@ -4,6 +4,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
 
 import event.Event;
 import event.Window;
@@ -15,10 +16,10 @@ public class Exh_topDown extends Partitioner {
 		super(w);
 	}
 	
-	public Partitioning getPartitioning (ArrayList<Event> batch, double memory_limit) { // double part_num
+	public Partitioning getPartitioning (List<Event> batch, double memory_limit) { // double part_num
 		
 		// Set local variables
-		Partitioning max_partitioning = Partitioning.getPartitioningWithMaxPartition(batch);
+		Partitioning max_partitioning = Partitioning.getPartitioningWithMaxPartition(batch, predicate);
 		System.out.println("Input: " + max_partitioning.toString(2));
 		Partitioning solution = new Partitioning(new ArrayList<Partition>());
 		
@@ -4,6 +4,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import event.*;
 import graph.*;
 
@@ -13,7 +14,7 @@ public class Gre_topDown extends Partitioner {
 		super(w);
 	}
 	
-	public Partitioning getPartitioning (ArrayList<Event> batch, double memory_limit) {
+	public Partitioning getPartitioning (List<Event> batch, double memory_limit) {
 		
 		// Set local variables
 		LinkedList<CutSet> heap = new LinkedList<CutSet>();
@@ -26,7 +27,7 @@ public class Gre_topDown extends Partitioner {
 		int level = getMinNumberOfRequiredPartitions_walkDown(batch,memory_limit);
 				
 		// Get the graph and its events per second 
-		Partitioning max_partitioning = Partitioning.getPartitioningWithMaxPartition(batch);
+		Partitioning max_partitioning = Partitioning.getPartitioningWithMaxPartition(batch, predicate);
 		Partition max_partition = max_partitioning.partitions.get(0);
 		int vertex_number = max_partition.vertexNumber;
 		if (level == vertex_number) {
@@ -99,7 +100,7 @@ public class Gre_topDown extends Partitioner {
 	}
 	
 	/*** Get minimal number of required partitions walking the search space top down ***/
-	public int getMinNumberOfRequiredPartitions_walkDown(ArrayList<Event> batch, double memory_limit) {	
+	public int getMinNumberOfRequiredPartitions_walkDown(List<Event> batch, double memory_limit) {	
 		
 		int event_number = batch.size();
 		
@@ -1,16 +1,19 @@
 package optimizer;
 
 import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.util.List;
 import event.*;
 
 public abstract class Partitioner {
 	
 	 ArrayDeque<Window> windows;
+	 // Compatibility predicate of the graphs to partition
+	 public Predicate predicate;
 	 
 	 public Partitioner (ArrayDeque<Window> w) {
 		 windows = w;
+		 predicate = Predicate.DEFAULT;
 	 }
 	
-	 abstract public Partitioning getPartitioning (ArrayList<Event> batch, double memeory_limit);	
+	 abstract public Partitioning getPartitioning (List<Event> batch, double memeory_limit);	
 }
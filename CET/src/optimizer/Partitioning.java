@@ -2,6 +2,7 @@ package optimizer;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import event.*;
 import graph.*;
 
@@ -34,10 +35,10 @@ public class Partitioning {
 	}
 	
 	/*** From the given batch of events construct a partitioning with one maximal partition ***/
-	public static Partitioning getPartitioningWithMaxPartition (ArrayList<Event> events) {	
+	public static Partitioning getPartitioningWithMaxPartition (List<Event> events, Predicate predicate) {	
 		
 		// Generate a single partition from all events 
-		Graph graph = Graph.constructGraph(events);
+		Graph graph = Graph.constructGraph(events, predicate);
 		int first_sec = events.get(0).sec;
 		int last_sec = events.get(events.size()-1).sec;
 		Partition part = new Partition(first_sec,last_sec,events.size(),graph.edgeNumber,graph.first_nodes,graph.last_nodes);
@@ -52,7 +53,7 @@ public class Partitioning {
 	}
 	
 	/*** From the given batch of events construct a partitioning with minimal partitions ***/
-	public static Partitioning getPartitioningWithMinPartitions (ArrayList<Event> events) {	
+	public static Partitioning getPartitioningWithMinPartitions (List<Event> events) {	
 		
 		int curr_sec = events.get(0).sec;
 		ArrayList<Partition> parts = new ArrayList<Partition>();
@@ -84,7 +85,7 @@ public class Partitioning {
 	}
 	
 	/*** Find an optimal partitioning at a level ***/
-	public static Partitioning getOptimalPartitioning (ArrayList<Event> batch, int cut_number) {	
+	public static Partitioning getOptimalPartitioning (List<Event> batch, int cut_number, Predicate predicate) {	
 		
 		// Set local variables
 		LinkedList<CutSet> heap = new LinkedList<CutSet>();
@@ -92,7 +93,7 @@ public class Partitioning {
 		double minCPU = Double.MAX_VALUE;								
 						
 		// Get the graph and its events per second 
-		Partitioning max_partitioning = Partitioning.getPartitioningWithMaxPartition(batch);
+		Partitioning max_partitioning = Partitioning.getPartitioningWithMaxPartition(batch, predicate);
 		Partition max_partition = max_partitioning.partitions.get(0);
 		int vertex_number = max_partition.vertexNumber;
 		if (cut_number == vertex_number) {
@@ -132,6 +133,17 @@ public class Partitioning {
 		return result;	
 	}
 	
+	/*** Partitioning into the given number of partitions of equal size that only carries vertex and edge numbers for the cost model ***/
+	public static Partitioning getEstimate (int first_sec, int last_sec, int vertex_number, long edge_number, int partition_number) {
+		ArrayList<Partition> parts = new ArrayList<Partition>();
+		for (int i=0; i<partition_number; i++) {
+			int v = vertex_number/partition_number + ((i < vertex_number%partition_number) ? 1 : 0);
+			int e = (int) Math.min(Integer.MAX_VALUE, edge_number/partition_number);
+			parts.add(new Partition(first_sec, last_sec, v, e, new ArrayList<Node>(), new ArrayList<Node>()));
+		}
+		return new Partitioning(parts);
+	}
+	
 	/*** Get CPU cost of this partitioning 
 	 * ignoring the CPU cost of graph construction and partitioning 
 	 * @param algorithm: 1 for M-CET, 2 for T-CET, 3 for H-CET ***/
@@ -163,6 +175,64 @@ public class Partitioning {
 		}}	
 	}
 	
+	/*** Natural logarithm of the sum of the numbers with the given natural logarithms ***/
+	public static double logSum (double a, double b) {
+		if (a == Double.NEGATIVE_INFINITY) return b;
+		if (b == Double.NEGATIVE_INFINITY) return a;
+		double max = Math.max(a, b);
+		return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+	}
+	
+	/*** Natural logarithm of the CPU cost of this partitioning. 
+	 * The costs are exponential in the number of vertexes and overflow at about 2000 vertexes, their logarithms do not.
+	 * @param algorithm: 1 for M-CET, 2 for T-CET, 3 for H-CET ***/
+	public double getLogCPUcost (int algorithm) {
+		double log3 = Math.log(3);
+		
+		/*** M-CET ***/
+		if (algorithm == 1) {
+			int vertex_number = partitions.get(0).vertexNumber;
+			return Math.log(2) + vertex_number/3.0 * log3 + Math.log(vertex_number);
+		} else {
+		/*** T-CET ***/
+		if (algorithm == 2) {
+			return partitions.get(0).getLogCPUcost();
+		} else { 
+			/*** H-CET ***/
+			double cost_within = Double.NEGATIVE_INFINITY;		
+			int v = 0;
+			for (Partition part : partitions) {
+				cost_within = logSum(cost_within, part.getLogCPUcost());
+				v += part.vertexNumber;			
+			}
+			double cost_across = Math.log(2) + v/3.0 * log3 + Math.log(partitions.size()-1);
+			return logSum(cost_within, cost_across);
+		}}	
+	}
+	
+	/*** Natural logarithm of the memory cost of this partitioning 
+	 * @param algorithm: 1 for M-CET, 2 for T-CET, 3 for H-CET ***/
+	public double getLogMEMcost (int algorithm) {
+		
+		/*** M-CET ***/
+		if (algorithm == 1) {
+			return Math.log(partitions.get(0).vertexNumber);
+		} else {
+		/*** T-CET ***/
+		if (algorithm == 2) { 
+			return partitions.get(0).getLogMEMcost();
+		} else { 
+			/*** H-CET ***/
+			double cost_within = Double.NEGATIVE_INFINITY;			
+			int v = 0;
+			for (Partition part : partitions) {
+				cost_within = logSum(cost_within, part.getLogMEMcost());
+				v += part.vertexNumber;
+			}
+			return logSum(cost_within, Math.log(v));
+		}}		
+	}
+	
 	/*** Get memory cost of this partitioning 
 	 * ignoring the memory cost of graph storage 
 	 * @param algorithm: 1 for M-CET, 2 for T-CET, 3 for H-CET ***/
@@ -0,0 +1,30 @@
+package scheduler;
+
+import event.*;
+import transaction.*;
+
+/**
+ * Transaction with a deadline. A priority queue of deadline tasks runs the window with the earliest deadline first.
+ */
+public class DeadlineTask implements Runnable, Comparable<DeadlineTask> {
+	
+	public Transaction transaction;
+	public Window window;
+	// System.nanoTime() by which the results of the window are due
+	public long deadline;
+	
+	public DeadlineTask (Transaction t, Window w, long d) {
+		transaction = t;
+		window = w;
+		deadline = d;
+	}
+	
+	public void run () {
+		transaction.run();
+	}
+	
+	public int compareTo (DeadlineTask other) {
+		if (this.deadline != other.deadline) return (this.deadline < other.deadline) ? -1 : 1;
+		return this.window.start - other.window.start;
+	}
+}
@@ -0,0 +1,98 @@
+package scheduler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import transaction.*;
+
+/**
+ * Pipeline mode: the stages of the transactions (graph construction, planning, trend computation, output)
+ * run on separate thread pools connected by bounded queues.
+ * A stage whose next queue is full waits, so a slow stage slows down the stages before it.
+ * Windows overlap in different stages, e.g. the optimizer plans the next window while the current window is computed,
+ * and writing the output never holds up trend computation.
+ */
+public class Pipeline {
+
+	ThreadPoolExecutor[] stages;
+
+	public Pipeline (int[] threads, int capacity) {
+
+		/*** A full queue makes the submitting thread wait for space ***/
+		RejectedExecutionHandler wait = new RejectedExecutionHandler() {
+			public void rejectedExecution (Runnable task, ThreadPoolExecutor executor) {
+				if (executor.isShutdown()) return;
+				try { executor.getQueue().put(task); } catch (InterruptedException e) { e.printStackTrace(); }
+			}
+		};
+		stages = new ThreadPoolExecutor[Transaction.STAGES.length];
+		for (int i=0; i<stages.length; i++) {
+			if (threads[i] > 0) {
+				stages[i] = new ThreadPoolExecutor(threads[i], threads[i], 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(capacity), wait);
+			} else {
+				// A thread per waiting transaction, e.g. for H-CET plans that wait for the shared partitions of later windows
+				stages[i] = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+		}}
+	}
+
+	/** Pipeline given as build:plan:compute:output threads, optionally followed by :queue capacity. 0 threads stand for a thread per transaction. */
+	public static Pipeline parse (String spec) {
+		String[] parameters = spec.split(":");
+		int[] threads = getThreads(spec);
+		int capacity = (parameters.length > threads.length) ? Integer.parseInt(parameters[threads.length]) : 16;
+		return new Pipeline(threads, capacity);
+	}
+	
+	/** Threads per stage of the given pipeline */
+	static int[] getThreads (String spec) {
+		String[] parameters = spec.split(":");
+		int[] threads = new int[Transaction.STAGES.length];
+		for (int i=0; i<threads.length; i++) {
+			threads[i] = (i < parameters.length) ? Integer.parseInt(parameters[i]) : 1;
+		}
+		return threads;
+	}
+	
+	/** 
+	 * Whether the plan and compute stages of the given pipeline have a thread per transaction. 
+	 * With overlapping windows, the plan of an H-CET window waits for the partitions that other windows write in their compute stage. 
+	 * A fixed number of threads deadlocks once all of them wait for windows queued behind them.
+	 */
+	public static boolean allowsWaiting (String spec) {
+		int[] threads = getThreads(spec);
+		return threads[1] == 0 && threads[2] == 0;
+	}
+
+	public void submit (Transaction transaction) {
+		submit(0, transaction);
+	}
+
+	/*** Run the given stage of the given transaction and pass the transaction on to the next stage ***/
+	void submit (final int stage, final Transaction transaction) {
+		stages[stage].execute(new Runnable() {
+			public void run () {
+				transaction.runStage(stage);
+				if (stage+1 < stages.length) {
+					submit(stage+1, transaction);
+				} else {
+					transaction.done();
+				}
+			}
+		});
+	}
+
+	public void shutdown () {
+		for (ThreadPoolExecutor stage : stages) stage.shutdown();
+	}
+
+	public String toString () {
+		String result = "";
+		for (int i=0; i<stages.length; i++) {
+			result += ((i > 0) ? ", " : "") + Transaction.STAGES[i] + " " + ((stages[i].getCorePoolSize() > 0) ? stages[i].getCorePoolSize() : "unbounded");
+		}
+		return result;
+	}
+}
@@ -1,13 +1,18 @@
 package scheduler;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import event.*;
+import graph.GraphBuilder;
 import iogenerator.*;
+import optimizer.*;
 import transaction.*;
 
 public class Scheduler implements Runnable {
@@ -35,6 +40,35 @@ public class Scheduler implements Runnable {
 	
 	boolean overlap;
 	SharedPartitions shared_partitions;
+	// Injection-to-result latency of the windows, null if not measured
+	public LatencyMonitor latency;
+	// Pane mode: each event is stored once in the pane of its second and windows read the panes they span when they are submitted
+	public boolean use_panes;
+	ArrayDeque<Pane> panes;
+	int pane_width;
+	// Unbounded mode: windows are created as the stream advances and retired once their results are done, 
+	// the input ends when the driver progress reaches Integer.MAX_VALUE
+	public boolean unbounded;
+	public int created_windows;
+	int next_start;
+	int next_end;
+	ArrayList<Window> running_windows;
+	ArrayList<CountDownLatch> running_latches;
+	// Deadline mode: the results of a window are due this many nanoseconds after its last event was injected, negative if windows have no deadline.
+	// The executor must order its queue by priority to run the earliest deadline first.
+	public long sla;
+	// Overload control: windows that cannot be done within the latency budget are degraded, null if windows are never degraded
+	public OverloadController overload;
+	// Key-partitioned mode: each window is split by partition key into independent graphs that run in parallel
+	public boolean partition_by_key;
+	// Multiple queries: name that prefixes the window identifiers of this query and its compatibility predicate
+	public String query;
+	public Predicate predicate;
+	// Eager mode: the graph of a window is constructed while the window is filling, 
+	// so that only the trends are computed when the window is done
+	public boolean eager;
+	// Pipeline mode: the stages of the transactions run on separate thread pools instead of the executor, null if off
+	public Pipeline pipeline;
 	
 	public Scheduler (EventQueue eq, int first, int last, int wl, int ws, String a, double ml, int pn, int sa, 
 			ExecutorService exe, AtomicInteger dp, CountDownLatch d, AtomicLong time, AtomicInteger mem, OutputFileGenerator o, boolean overl) {	
@@ -63,6 +97,20 @@ public class Scheduler implements Runnable {
 		
 		overlap = overl;
 		shared_partitions = new SharedPartitions();
+		use_panes = false;
+		panes = new ArrayDeque<Pane>();
+		pane_width = Pane.getWidth(wl, ws);
+		unbounded = false;
+		created_windows = 0;
+		next_start = first;
+		next_end = wl;
+		running_windows = new ArrayList<Window>();
+		running_latches = new ArrayList<CountDownLatch>();
+		sla = -1;
+		partition_by_key = false;
+		query = "";
+		predicate = Predicate.DEFAULT;
+		eager = false;
 	}
 	
 	/**
@@ -70,48 +118,53 @@ public class Scheduler implements Runnable {
 	 */	
 	public void run() {	
 		
-		/*** Create windows ***/	
+		/*** Create windows, lazily in unbounded mode ***/	
 		ArrayDeque<Window> windows2iterate = new ArrayDeque<Window>();
-		int start = firstsec;
-		int end = window_length;
-		while (start <= lastsec) {
-			Window window = new Window(start, end);		
-			windows.add(window);
-			windows2iterate.add(window);
-			start += window_slide;
-			end = (start+window_length > lastsec) ? lastsec : (start+window_length); 
-			//System.out.println(window.toString() + " is created.");
-		}			
+		if (!unbounded) createWindows(lastsec, windows2iterate);
 		
 		/*** Set local variables ***/
 		int progress = Math.min(window_slide,lastsec);
 		boolean last_iteration = false;
 									
 		/*** Get the permission to schedule current slide ***/
-		while (eventqueue.getDriverProgress(progress)) {
+		while (true) {
+			
+			// A bounded event queue hands out events before the slide is complete, otherwise a full queue would block the driver
+			boolean slide_complete = eventqueue.getDriverProgressOrEvents(progress);
 			
 			/*** Schedule the available events ***/
-			Event event = eventqueue.contents.peek();
+			Event event = eventqueue.peek();
 			while (event != null && event.sec <= progress) { 
 					
-				Event e = eventqueue.contents.poll();
+				Event e = eventqueue.poll();
+				if (unbounded) createWindows(e.sec, windows2iterate);
 								
-				/*** Fill windows with events ***/
+				/*** Fill windows or panes with events ***/
+				if (use_panes) {
+					addToPane(e, windows2iterate);
+				} else {
 				for (Window window : windows2iterate) {
-					if (window.relevant(e)) window.events.add(e); 
-				}
+					if (window.relevant(e)) window.add(e);
+				}}
 				/*** Poll an expired window and submit it for execution ***/
 				if (!windows2iterate.isEmpty() && windows2iterate.getFirst().expired(e)) {					
-					Window window = windows2iterate.poll();
-					if (window.events.size() > 1) {
-						System.out.println(window.toString());
-						execute(window);				
-					} else {
-						transaction_number.countDown();
-					}
+					submit(windows2iterate.poll());
 				}
-				event = eventqueue.contents.peek();
+				event = eventqueue.peek();
 			}		 
+			if (!slide_complete) continue;
+			
+			/*** Poll the windows expired by the driver progress and submit them for execution ***/
+			if (unbounded) createWindows(progress, windows2iterate);
+			while (!windows2iterate.isEmpty() && windows2iterate.getFirst().expired(progress)) {
+				submit(windows2iterate.poll());
+			}
+			/*** Unbounded mode: stop at the end of the input ***/
+			if (unbounded) {
+				retire();
+				if (eventqueue.driverProgress.get() == Integer.MAX_VALUE && eventqueue.peek() == null) break;
+			}
+			
 			/*** Update progress ***/
 			if (last_iteration) {
 				break;
@@ -126,35 +179,245 @@ public class Scheduler implements Runnable {
 		}
 		/*** Poll the last windows and submit them for execution ***/
 		for (Window window : windows2iterate) {
-			if (window.events.size() > 1) {
-				System.out.println(window.toString());
-				execute(window);			
-			} else {
-				transaction_number.countDown();
-			}
+			submit(window);
 		}		
 		/*** Terminate ***/
-		try { transaction_number.await(); } catch (InterruptedException e) { e.printStackTrace(); }
+		try { 
+			if (unbounded) {
+				for (CountDownLatch latch : running_latches) latch.await();
+				retire();
+			} else {
+				transaction_number.await(); 
+			}
+		} catch (InterruptedException e) { e.printStackTrace(); }
 		done.countDown();	
 		//System.out.println("Scheduler is done.");
 	}	
 	
-	public void execute(Window window) {
-		Transaction transaction;
-		if (algorithm.equals("sase")) {
-			transaction = new Sase(window,output,transaction_number,total_cpu,total_memory);
+	/*** Algorithms by name ***/
+	static LinkedHashMap<String,TransactionFactory> algorithms = new LinkedHashMap<String,TransactionFactory>();
+	static {
+		register("sase", new TransactionFactory() {
+			public Transaction create (Scheduler s, Window w, CountDownLatch tn, ArrayDeque<Window> ws) { return new Sase(w,s.output,tn,s.total_cpu,s.total_memory); }
+			public int getCostModel () { return 0; }
+			public boolean usesGraph () { return false; }
+		});
+		register("bl", new TransactionFactory() {
+			public Transaction create (Scheduler s, Window w, CountDownLatch tn, ArrayDeque<Window> ws) { return new BaseLine(w,s.output,tn,s.total_cpu,s.total_memory); }
+			public int getCostModel () { return 0; }
+			public boolean usesGraph () { return false; }
+		});
+		register("tcet", new TransactionFactory() {
+			public Transaction create (Scheduler s, Window w, CountDownLatch tn, ArrayDeque<Window> ws) { return new T_CET(w,s.output,tn,s.total_cpu,s.total_memory); }
+			public int getCostModel () { return 2; }
+			public boolean usesGraph () { return true; }
+		});
+		register("hcet", new TransactionFactory() {
+			public Transaction create (Scheduler s, Window w, CountDownLatch tn, ArrayDeque<Window> ws) { 
+				return new H_CET(w,s.output,tn,s.total_cpu,s.total_memory,s.memory_limit,s.cut_number,s.search_algorithm,ws,s.window_slide,s.overlap,s.shared_partitions); 
+			}
+			public int getCostModel () { return 3; }
+			public boolean usesGraph () { return false; }
+		});
+		register("mcet", new TransactionFactory() {
+			public Transaction create (Scheduler s, Window w, CountDownLatch tn, ArrayDeque<Window> ws) { return new M_CET(w,s.output,tn,s.total_cpu,s.total_memory); }
+			public int getCostModel () { return 1; }
+			public boolean usesGraph () { return true; }
+		});
+	}
+	
+	/** Register a new algorithm */
+	public static synchronized void register (String name, TransactionFactory factory) {
+		algorithms.put(name, factory);
+	}
+	
+	/** Algorithm of the given name, H-CET for unknown names */
+	public static synchronized TransactionFactory getFactory (String name) {
+		TransactionFactory factory = algorithms.get(name);
+		return (factory == null) ? algorithms.get("hcet") : factory;
+	}
+	
+	/** 
+	 * Auto mode: estimate the vertex and edge numbers of the window 
+	 * and choose the algorithm with the lowest CPU cost whose memory cost is within the memory limit.
+	 * If no algorithm fits, the one with the lowest memory cost is chosen. 
+	 * H-CET is only considered with a bounded partitioning search, the other searches enumerate cut sets
+	 * and take exponential time that the cost model does not cover.
+	 */
+	String selectAlgorithm (Window window) {
+		EventColumns columns = window.getColumns();
+		if (columns == null) return "tcet";
+		int vertex_number = columns.size;
+		long edge_number = columns.estimateEdgeNumber();
+		int first_sec = columns.sec[0];
+		int last_sec = columns.sec[vertex_number-1];
+		
+		String best = null;
+		double best_cpu = 0;
+		String smallest = null;
+		double smallest_mem = 0;
+		synchronized (Scheduler.class) {
+			for (String name : algorithms.keySet()) {
+				int model = algorithms.get(name).getCostModel();
+				if (model == 0 || (model == 3 && getPartitionNumber(window, columns.getSecondNumber()) == 0)) continue;
+				// H-CET is estimated with the partitions of its search, the other algorithms with one partition
+				int partition_number = (model == 3) ? getPartitionNumber(window, columns.getSecondNumber()) : 1;
+				// The costs overflow at about 2000 events, so their logarithms are compared
+				Partitioning partitioning = Partitioning.getEstimate(first_sec, last_sec, vertex_number, edge_number, partition_number);
+				double cpu = partitioning.getLogCPUcost(model);
+				double mem = partitioning.getLogMEMcost(model);
+				if (mem <= Math.log(memory_limit) && (best == null || cpu < best_cpu)) {
+					best = name;
+					best_cpu = cpu;
+				}
+				if (smallest == null || mem < smallest_mem) {
+					smallest = name;
+					smallest_mem = mem;
+				}
+		}}
+		String result = (best != null) ? best : smallest;
+		System.out.println("Window " + window.id + " runs " + result + ": " + vertex_number + " events, about " + edge_number + " edges.");
+		return result;
+	}
+	
+	/** Number of partitions of H-CET for the given window with the given number of seconds under a bounded search, 0 under a search that enumerates cut sets */
+	int getPartitionNumber (Window window, int second_number) {
+		// One cut between the seconds of the window
+		if (search_algorithm == 4) return (cut_number >= 1 && cut_number < second_number) ? 2 : 0;
+		// One partition per window slide
+		if (search_algorithm == 5) return Math.max((window.end - window.start + window_slide - 1) / window_slide, 1);
+		return 0;
+	}
+	
+	/** Create the windows that start at the given second or before */
+	void createWindows (int sec, ArrayDeque<Window> windows2iterate) {
+		while (next_start <= sec && next_start <= lastsec) {
+			Window window = new Window(next_start, next_end);		
+			if (!query.isEmpty()) window.id = query + " " + window.id;
+			window.predicate = predicate;
+			// Key-partitioned transactions construct a graph per key instead of the graph of the window
+			if (eager && !partition_by_key && (algorithm.equals("auto") || getFactory(algorithm).usesGraph())) window.builder = GraphBuilder.create(predicate);
+			windows.add(window);
+			windows2iterate.add(window);
+			created_windows++;
+			next_start += window_slide;
+			next_end = (next_start+window_length > lastsec) ? lastsec : (next_start+window_length); 
+			//System.out.println(window.toString() + " is created.");
+		}
+	}
+	
+	/** Unbounded mode: remove the windows whose results are done, so that the optimizers only see active windows */
+	void retire () {
+		for (int i=running_latches.size()-1; i>=0; i--) {
+			if (running_latches.get(i).getCount() == 0) {
+				windows.remove(running_windows.get(i));
+				running_windows.remove(i);
+				running_latches.remove(i);
+		}}
+	}
+	
+	/** Store the given event in the pane of its second unless no window to come contains it */
+	void addToPane (Event e, ArrayDeque<Window> windows2iterate) {
+		
+		/*** Retire the panes before the first window to come ***/
+		while (!panes.isEmpty() && (windows2iterate.isEmpty() || panes.getFirst().end < windows2iterate.getFirst().start)) {
+			panes.poll();
+		}
+		if (windows2iterate.isEmpty() || e.sec < windows2iterate.getFirst().start || e.sec > windows2iterate.getLast().end) return;
+		
+		/*** Create panes up to the second of the event ***/
+		while (panes.isEmpty() || panes.getLast().end < e.sec) {
+			int start = (panes.isEmpty()) ? windows2iterate.getFirst().start : panes.getLast().end+1;
+			// Align the first pane to the pane width so that window boundaries stay on pane boundaries
+			int end = (panes.isEmpty()) ? start - Math.floorMod(start-firstsec, pane_width) + pane_width - 1 : start + pane_width - 1;
+			panes.add(new Pane(start, end));
+		}
+		/*** Events arrive in time stamp order, so the pane is usually the last one ***/
+		Iterator<Pane> iterator = panes.descendingIterator();
+		while (iterator.hasNext()) {
+			Pane pane = iterator.next();
+			if (pane.relevant(e)) {
+				pane.add(e);
+				return;
+		}}
+	}
+	
+	/** 
+	 * Give the given window a view of the panes it spans instead of a copy of their events. 
+	 * The boundary panes may hold events outside of the window, only their events within the window are copied.
+	 */
+	void assemble (Window window) {
+		PaneEvents events = new PaneEvents();
+		for (Pane pane : panes) {
+			if (pane.end < window.start) continue;
+			if (pane.start > window.end) break;
+			if (window.start <= pane.start && pane.end <= window.end) {
+				events.addPart(pane.events);
+				if (window.last_injection < pane.last_injection) window.last_injection = pane.last_injection;
+			} else {
+				ArrayList<Event> part = new ArrayList<Event>();
+				for (Event e : pane.events) {
+					if (window.relevant(e)) {
+						part.add(e);
+						if (window.last_injection < e.injection_time) window.last_injection = e.injection_time;
+				}}
+				events.addPart(part);
+			}
+		}
+		window.events = events;
+		if (window.builder != null) for (Event e : events) window.builder.add(e);
+	}
+	
+	/** Execute the given window unless it has too few events */
+	void submit (Window window) {
+		if (use_panes) assemble(window);
+		if (window.events.size() > 1) {
+			System.out.println(window.toString());
+			execute(window);				
 		} else {
-		if (algorithm.equals("bl")) {
-			transaction = new BaseLine(window,output,transaction_number,total_cpu,total_memory);		
+		if (unbounded) {
+			windows.remove(window);
 		} else {
-		if (algorithm.equals("mcet")) {
-			transaction = new M_CET(window,output,transaction_number,total_cpu,total_memory);
+			transaction_number.countDown();
+		}}
+	}
+	
+	public void execute(Window window) {
+		// Unbounded mode: each window has its own latch and the optimizers get a snapshot of the active windows
+		CountDownLatch transaction_number = this.transaction_number;
+		ArrayDeque<Window> windows = this.windows;
+		if (unbounded) {
+			transaction_number = new CountDownLatch(1);
+			windows = new ArrayDeque<Window>(this.windows);
+			running_windows.add(window);
+			running_latches.add(transaction_number);
+		}
+		String name = (algorithm.equals("auto")) ? selectAlgorithm(window) : algorithm;
+		TransactionFactory factory = getFactory(name);
+		// With overlap, H-CET windows write partitions that later windows wait for, so they are never degraded
+		boolean shares = overlap && factory.getCostModel() == 3;
+		int decision = (overload == null) ? OverloadController.RUN : overload.admit(window, factory.getCostModel(), shares);
+		if (decision == OverloadController.DROP) {
+			window.dropColumns();
+			transaction_number.countDown();
+			return;
+		}
+		Transaction transaction = (decision == OverloadController.COUNT) ? 
+				new CountOnly(window,output,transaction_number,total_cpu,total_memory) : 
+				factory.create(this,window,transaction_number,windows);
+		// The eager graph of a window that the chosen algorithm does not use is released
+		if (decision != OverloadController.COUNT && !factory.usesGraph()) window.builder = null;
+		transaction.latency = latency;
+		transaction.overload = overload;
+		transaction.partition_by_key = partition_by_key;
+		if (pipeline != null) {
+			pipeline.submit(transaction);
 		} else {
-		if (algorithm.equals("tcet")) {
-			transaction = new T_CET(window,output,transaction_number,total_cpu,total_memory);
+		if (sla >= 0) {
+			long ready = (window.last_injection > 0) ? window.last_injection : System.nanoTime();
+			executor.execute(new DeadlineTask(transaction, window, ready + sla));
 		} else {
-			transaction = new H_CET(window,output,transaction_number,total_cpu,total_memory,memory_limit,cut_number,search_algorithm,windows,window_slide,overlap,shared_partitions);
-		}}}}		
-		executor.execute(transaction);	
+			executor.execute(transaction);
+		}}	
 	}	
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package scheduler;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CountDownLatch;
+
+import event.*;
+import transaction.*;
+
+/**
+ * Create the transaction of an algorithm for a window.
+ */
+public interface TransactionFactory {
+	
+	/** Transaction that computes the results of the given window */
+	public Transaction create (Scheduler scheduler, Window window, CountDownLatch transaction_number, ArrayDeque<Window> windows);
+	
+	/** Cost model of this algorithm in optimizer.Partitioning: 1 for M-CET, 2 for T-CET, 3 for H-CET, 0 if it is never chosen automatically */
+	public int getCostModel ();
+	
+	/** Whether the transaction constructs the graph of the whole window, so that eager mode can build it while the window fills */
+	public boolean usesGraph ();
+}
@@ -19,16 +19,17 @@ public class BaseLine extends Transaction {
 		results = new ArrayList<ArrayList<Event>>();
 	}
 	
-	public void run () {
+	public void compute () {
 		
 		long start =  System.currentTimeMillis();
 		computeResults();
 		long end =  System.currentTimeMillis();
 		long duration = end - start;
 		total_cpu.set(total_cpu.get() + duration);
-		
+	}
+	
+	public void output () {
 		writeOutput2File();		
-		transaction_number.countDown();
 	}
 	
 	public void computeResults() {						
@@ -53,12 +54,12 @@ public class BaseLine extends Transaction {
 					Event before_last = (previous_result.size()-2>=0) ? previous_result.get(previous_result.size()-2) : null;
 					
 					/*** CASE II: Append to a CET ***/
-					if (last.isCompatible(event)) {
+					if (window.predicate.isCompatible(last, event)) {
 						previous_result.add(event);
 						added = true;
 					} else {
 						/*** CASE III: Append to a prefix of a CET ***/
-						if (before_last!=null && before_last.isCompatible(event)) {
+						if (before_last!=null && window.predicate.isCompatible(before_last, event)) {
 							ArrayList<Event> new_result = new ArrayList<Event>();
 							new_result.addAll(previous_result);
 							new_result.remove(previous_result.size()-1);
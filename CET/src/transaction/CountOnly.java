@@ -0,0 +1,57 @@
+package transaction;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import event.*;
+import graph.*;
+import iogenerator.*;
+
+/**
+ * Degraded evaluation of a window: count the event trends without constructing them.
+ * The number of trends that end at a node is the sum of these numbers of its previous nodes, 
+ * so one pass over the graph in time stamp order counts all trends in linear time. 
+ */
+public class CountOnly extends Transaction {
+	
+	Graph graph;
+	BigInteger count;
+	
+	public CountOnly (Window w, OutputFileGenerator o, CountDownLatch tn, AtomicLong time, AtomicInteger mem) {
+		super(w,o,tn,time,mem);
+	}
+	
+	public void build () {
+		start_time =  System.currentTimeMillis();
+		graph = constructGraph();
+	}
+	
+	public void compute () {
+		count = countResults(graph);
+		long end =  System.currentTimeMillis();
+		total_cpu.set(total_cpu.get() + end - start_time);
+	}
+	
+	public void output () {
+		int memory = graph.nodes.size() + graph.edgeNumber;
+		total_mem.set(total_mem.get() + memory);
+		System.out.println("Window " + window.id + " has " + count + " results (count only).");
+	}
+	
+	/** Number of trends from the first nodes to the last nodes of the given graph */
+	public static BigInteger countResults (Graph graph) {
+		// The number of trends is exponential in the number of events, so it is counted exactly without overflow
+		HashMap<Node,BigInteger> counts = new HashMap<Node,BigInteger>();
+		for (Node node : graph.nodes) {
+			BigInteger count = (node.isFirst) ? BigInteger.ONE : BigInteger.ZERO;
+			for (Node previous : node.previous) count = count.add(counts.get(previous));
+			counts.put(node, count);
+		}
+		BigInteger result = BigInteger.ZERO;
+		for (Node last : graph.last_nodes) result = result.add(counts.get(last));
+		return result;
+	}
+}
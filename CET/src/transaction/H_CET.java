@@ -9,6 +9,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Stack;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import event.*;
@@ -26,6 +28,7 @@ public class H_CET extends Transaction {
 	boolean overlap;
 	SharedPartitions shared_partitions;
 	ArrayList<String> results;
+	int memory;
 	
 	public H_CET (Window w, OutputFileGenerator o, CountDownLatch tn, AtomicLong time, AtomicInteger mem, double ml, int pn, int sa, 
 			ArrayDeque<Window> ws, int wsl, boolean overl, SharedPartitions sp) {
@@ -40,12 +43,11 @@ public class H_CET extends Transaction {
 		results = new ArrayList<String>();
 	}
 
-	public void run() {	
+	/*** Partition the graph of the window ***/
+	public void plan () {	
 		
 		// long start =  System.currentTimeMillis();	
 		
-		// Size of the graph
-		int size_of_the_graph = window.events.size();// + Graph.constructGraph(batch).edgeNumber;
 		HashMap<Integer,Graph> graphlets = new HashMap<Integer,Graph>();
 				
 		if (search_algorithm<3) {
@@ -58,16 +60,17 @@ public class H_CET extends Transaction {
 			} else {
 				partitioner = new Gre_topDown(windows);
 			}}
+			partitioner.predicate = window.predicate;
 			resulting_partitioning = partitioner.getPartitioning(window.events, memory_limit);
 		} else {
 			if (search_algorithm==3) {
 				// Get an optimal partitioning with the given cut number
-				resulting_partitioning = Partitioning.getOptimalPartitioning(window.events, cut_number);
+				resulting_partitioning = Partitioning.getOptimalPartitioning(window.events, cut_number, window.predicate);
 			} else {
 			if (search_algorithm==4) {
 				
 				// Get the partitioning with the given cut
-				Partitioning max_partitioning = Partitioning.getPartitioningWithMaxPartition(window.events);
+				Partitioning max_partitioning = Partitioning.getPartitioningWithMaxPartition(window.events, window.predicate);
 				ArrayList<Integer> cuts = new ArrayList<Integer>();
 				cuts.add(cut_number);
 				CutSet cutset = new CutSet(cuts);
@@ -109,7 +112,7 @@ public class H_CET extends Transaction {
 							if (event.sec > e) break;
 						}						
 						// Construct a partition from these events
-						Graph g = Graph.constructGraph(selected_events);						
+						Graph g = Graph.constructGraph(selected_events, window.predicate);						
 						Partition part = new Partition(s,e,selected_events.size(),g.edgeNumber,g.first_nodes,g.last_nodes);
 						parts.add(part);
 						graphlets.put(s,g);
@@ -126,28 +129,42 @@ public class H_CET extends Transaction {
 				resulting_partitioning = new Partitioning(parts);
 				//System.out.println("Resulting partitioning: " + resulting_partitioning.toString(3));				
 		}}}
-					
+	}
+	
+	/*** Compute the results within and across partitions ***/
+	public void compute () {
+		
 		if (!resulting_partitioning.partitions.isEmpty()) {
 			
 			long start =  System.currentTimeMillis();
 			
 			/*** Compute results within partitions ***/
 			int cets_within_partitions = 0;
+			if (canFork()) {
+				// In a fork join pool the partitions are computed in parallel once all their first nodes are marked 
+				ArrayList<RecursiveTask<Integer>> tasks = new ArrayList<RecursiveTask<Integer>>();
+				for (final Partition partition : resulting_partitioning.partitions) {
+					if (window.writes(partition.start,overlap)) {
+						for (Node first_node : partition.first_nodes) { first_node.isFirst = true; }
+						tasks.add(new RecursiveTask<Integer>() {
+							protected Integer compute () { return computePartition(partition); }
+						});
+				}}
+				for (RecursiveTask<Integer> task : ForkJoinTask.invokeAll(tasks)) {
+					cets_within_partitions += task.join();
+				}
+			} else {
 			for (Partition partition : resulting_partitioning.partitions) {	
 			
-				ArrayList<EventTrend> partitionResults = new ArrayList<EventTrend>();
 				boolean writes = window.writes(partition.start,overlap);
 				
 				if (writes) {
 					
 					// If this window writes the results of this partition, compute these results
 					for (Node first_node : partition.first_nodes) { first_node.isFirst = true; }
-					partition.results = T_CET.computeResults(partition.last_nodes,writes,partitionResults);
-					shared_partitions.add(partition.id, partition);
-					cets_within_partitions += partition.getCETlength();
-					//System.out.println("Results written: " + partition.id + " " + partition.results.size());
+					cets_within_partitions += computePartition(partition);
 				} 			
-			}
+			}}
 			/*** Draw edges between partitions ***/
 			for (Partition partition : resulting_partitioning.partitions) {
 				int prev_start = partition.start-window_slide;
@@ -179,21 +196,48 @@ public class H_CET extends Transaction {
 			for(int i=1; first.first_nodes.isEmpty(); i++){
 				first = resulting_partitioning.partitions.get(i);
 			}			
+			if (canFork()) {
+				// In a fork join pool the traversals from the event trends of the first partition are forked
+				ArrayList<RecursiveTask<Integer>> tasks = new ArrayList<RecursiveTask<Integer>>();
+				for (Node first_node : first.first_nodes) {				
+					for (final EventTrend event_trend : first_node.results) {
+						tasks.add(new RecursiveTask<Integer>() {
+							protected Integer compute () { return computeResults(event_trend, new Stack<EventTrend>(), 0); }
+						});
+				}}
+				for (RecursiveTask<Integer> task : ForkJoinTask.invokeAll(tasks)) {
+					int length = task.join();
+					if (max_cet_across_partitions < length) max_cet_across_partitions = length;
+				}
+			} else {
 			for (Node first_node : first.first_nodes) {				
 				for (EventTrend event_trend : first_node.results) {
 					
 					int length = computeResults(event_trend, new Stack<EventTrend>(), max_cet_across_partitions);				
 					if (max_cet_across_partitions < length) max_cet_across_partitions = length;		
-			}}
+			}}}
 					
 			long end =  System.currentTimeMillis();
 			long duration = end - start;
 			total_cpu.set(total_cpu.get() + duration);
 		
-			int memory = size_of_the_graph + cets_within_partitions + max_cet_across_partitions;
-			writeOutput2File(memory);
+			// Size of the graph
+			int size_of_the_graph = window.events.size();// + Graph.constructGraph(batch).edgeNumber;
+			memory = size_of_the_graph + cets_within_partitions + max_cet_across_partitions;
 		}
-		transaction_number.countDown();		
+	}
+	
+	public void output () {
+		if (!resulting_partitioning.partitions.isEmpty()) writeOutput2File(memory);
+	}
+	
+	/** Compute the results within the given partition, share them with other windows and return their length */
+	int computePartition (Partition partition) {
+		ArrayList<EventTrend> partitionResults = new ArrayList<EventTrend>();
+		partition.results = T_CET.computeResults(partition.last_nodes,true,partitionResults);
+		shared_partitions.add(partition.id, partition);
+		//System.out.println("Results written: " + partition.id + " " + partition.results.size());
+		return partition.getCETlength();
 	}
 	
 	// DFS recomputing intermediate results
@@ -214,7 +258,7 @@ public class H_CET extends Transaction {
 	       	}
 	       	if (maxSeqLength < eventNumber) maxSeqLength = eventNumber;	
 	       	String s = (!result.isEmpty()) ? result : event_trend.sequence;
-	       	results.add(s);  
+	       	synchronized (results) { results.add(s); }
 	       	//System.out.println("result " + s);
 	   } else {
 	   /*** Recursive case: Traverse the following nodes. ***/        	
@@ -0,0 +1,58 @@
+package transaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import event.*;
+
+/**
+ * Injection-to-result latency per window: the time from the injection of the last event of a window
+ * into the event queue until the results of the window are computed.
+ * A window whose latency exceeds the latency SLA misses its deadline.
+ */
+public class LatencyMonitor {
+
+	// Number of the most recent windows in the recent latency percentile
+	static final int RECENT = 100;
+
+	ArrayList<Long> latencies;
+	// Latency SLA in nanoseconds, negative if windows have no deadline
+	public long sla;
+	int misses;
+
+	public LatencyMonitor () {
+		latencies = new ArrayList<Long>();
+		sla = -1;
+		misses = 0;
+	}
+
+	/*** Record the latency of the given window that is done now ***/
+	public void record (Window window) {
+		if (window.last_injection == 0) return;
+		long latency = System.nanoTime() - window.last_injection;
+		boolean missed = sla >= 0 && latency > sla;
+		synchronized (this) {
+			latencies.add(latency);
+			if (missed) misses++;
+		}
+		System.out.println("Window " + window.id + " latency: " + latency/1000000.0 + " ms" + 
+				((missed) ? ", missed its deadline by " + (latency-sla)/1000000.0 + " ms" : ""));
+	}
+
+	/** Summary of the latencies of all windows */
+	public synchronized String toString () {
+		if (latencies.isEmpty()) return "No latency measured";
+		ArrayList<Long> sorted = new ArrayList<Long>(latencies);
+		Collections.sort(sorted);
+		ArrayList<Long> recent = new ArrayList<Long>(latencies.subList(Math.max(0, latencies.size()-RECENT), latencies.size()));
+		Collections.sort(recent);
+		long sum = 0;
+		for (long latency : sorted) sum += latency;
+		return 	"Avg latency: " + sum/sorted.size()/1000000.0 + " ms" +
+				"\nMedian latency: " + sorted.get(sorted.size()/2)/1000000.0 + " ms" +
+				"\n99th percentile latency: " + sorted.get(sorted.size()*99/100)/1000000.0 + " ms" +
+				"\n99th percentile latency of the last " + recent.size() + " windows: " + recent.get(recent.size()*99/100)/1000000.0 + " ms" +
+				"\nMax latency: " + sorted.get(sorted.size()-1)/1000000.0 + " ms" +
+				((sla >= 0) ? "\nDeadline misses: " + misses + " of " + sorted.size() + " windows" : "");
+	}
+}
@@ -6,6 +6,8 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Stack;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import event.*;
@@ -22,11 +24,11 @@ public class M_CET extends Transaction {
 		results = new ArrayList<String>();
 	}
 	
-	public void run() {
-		
-		// Start timer and construct the graph
-		long start =  System.currentTimeMillis();
-		graph = Graph.constructGraph(window.events);	
+	/*** Start the timer and construct the graph, in key-partitioned mode the graph of each key is constructed and traversed in the compute stage ***/
+	public void build () {
+		start_time =  System.currentTimeMillis();
+		if (partition_by_key) return;
+		graph = constructGraph();	
 		
 		// Estimated CPU and memory costs
 		int vertex_number = window.events.size();
@@ -34,22 +36,50 @@ public class M_CET extends Transaction {
 		
 		int estimated_mem = vertex_number;
 		System.out.println("CPU: " + estimated_cpu + " MEM: " + estimated_mem);
+	}
+	
+	public void compute () {
 		
-		// Compute results
+		// Key-partitioned mode: the graph of each key is constructed and traversed in parallel
 		int maxSeqLength = 0;
+		if (partition_by_key) {
+			graph = processByKey();
+			maxSeqLength = max_length;
+		} else {
+		// Compute results, in a fork join pool the traversals from the first nodes are forked
+		if (canFork() && graph.first_nodes.size() > 1) {
+			ArrayList<RecursiveTask<Integer>> tasks = new ArrayList<RecursiveTask<Integer>>();
+			for (final Node first : graph.first_nodes) {
+				tasks.add(new RecursiveTask<Integer>() {
+					protected Integer compute () { return computeResults(first,new Stack<Node>(),0); }
+				});
+			}
+			for (RecursiveTask<Integer> task : ForkJoinTask.invokeAll(tasks)) {
+				maxSeqLength = Math.max(maxSeqLength, task.join());
+			}
+		} else {
 		for (Node first : graph.first_nodes) {
 			Stack<Node> current_sequence = new Stack<Node>();
 			maxSeqLength = computeResults(first,current_sequence,maxSeqLength);
-		}
+		}}}
+		max_length = maxSeqLength;
 		
 		// Stop timer
 		long end =  System.currentTimeMillis();
-		long duration = end - start;
+		long duration = end - start_time;
 		total_cpu.set(total_cpu.get() + duration);
-		
-		// Output results
-		writeOutput2File(maxSeqLength);		
-		transaction_number.countDown();
+	}
+	
+	public void output () {
+		writeOutput2File(max_length);		
+	}
+	
+	int processGraph (Graph graph) {
+		int maxSeqLength = 0;
+		for (Node first : graph.first_nodes) {
+			maxSeqLength = computeResults(first,new Stack<Node>(),maxSeqLength);
+		}
+		return maxSeqLength;
 	}
 	
 	// DFS recomputing intermediate results
@@ -0,0 +1,164 @@
+package transaction;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import event.*;
+import optimizer.*;
+
+/**
+ * Protect the engine when the input arrives faster than the windows are processed.
+ *
+ * The cost of each window is estimated by the cost model of its algorithm. The processing rate is the estimated cost
+ * of the windows that ran in full per millisecond of their run time, a conservative default rate until the first
+ * such window is finished. Degraded windows never calibrate the rate. A window whose results would be done later
+ * than the latency budget, given the backlog of pending windows, is degraded: it either runs count-only, is truncated
+ * to its most recent events that fit into the budget, or is dropped. A window is never degraded while no other
+ * window is pending. Every degraded window is reported.
+ *
+ * The costs are exponential in the number of events and overflow at about 2000 events,
+ * so they are kept and compared as natural logarithms.
+ */
+public class OverloadController {
+
+	// Decisions for a window
+	public static final int RUN = 0;
+	public static final int COUNT = 1;
+	public static final int DROP = 2;
+	// Policies for a window that does not fit into the budget
+	public static final int COUNT_ONLY = 0;
+	public static final int TRUNCATE = 1;
+	public static final int DROP_WINDOW = 2;
+	// Estimated cost per millisecond assumed until the first full window is finished
+	static final double DEFAULT_RATE = 1000;
+
+	// Latency budget in milliseconds and degradation policy
+	double budget;
+	int policy;
+
+	// Logarithm of the estimated cost of the pending windows by window identifier
+	HashMap<String,Double> backlog;
+	// Pending windows that run in full
+	HashSet<String> full_windows;
+	// Logarithm of the estimated cost of the finished full windows and the milliseconds of their run time
+	double finished_cost;
+	double run_time;
+
+	// Statistics of the degraded windows
+	int degraded_windows;
+	long shed_events;
+
+	public OverloadController (double b, int p) {
+		budget = b;
+		policy = p;
+		backlog = new HashMap<String,Double>();
+		full_windows = new HashSet<String>();
+		finished_cost = Double.NEGATIVE_INFINITY;
+		run_time = 0;
+		degraded_windows = 0;
+		shed_events = 0;
+	}
+
+	public static int getPolicy (String name) {
+		if (name.equals("truncate")) return TRUNCATE;
+		if (name.equals("drop")) return DROP_WINDOW;
+		return COUNT_ONLY;
+	}
+
+	/*** Logarithm of the estimated CPU cost of the given number of events and edges under the given cost model (1 M-CET, 2 T-CET, 3 H-CET) ***/
+	static double getCost (int model, int vertex_number, long edge_number, int second_number) {
+		if (model < 1 || model > 3) model = 2;
+		int partition_number = (model == 3) ? Math.max(Math.min(second_number, vertex_number), 2) : 1;
+		return Partitioning.getEstimate(0, 0, vertex_number, edge_number, partition_number).getLogCPUcost(model);
+	}
+	
+	/*** Cost given as natural logarithm in a readable form ***/
+	static String format (double cost) {
+		return (cost == Double.NEGATIVE_INFINITY) ? "0" : "10^" + Math.round(cost / Math.log(10) * 10) / 10.0;
+	}
+
+	/**
+	 * Decide whether the given window runs, runs count-only or is dropped under the given cost model.
+	 * A window is degraded if its estimated cost exceeds the cost that the engine can finish within the budget
+	 * minus the cost of the pending windows. A truncated window runs with its most recent events only.
+	 * A window runs in full if no other window is pending, such that the rate is calibrated by windows of any cost.
+	 * A window that writes shared partitions always runs in full, since other windows wait for these partitions.
+	 */
+	public synchronized int admit (Window window, int model, boolean shares) {
+
+		EventColumns columns = window.getColumns();
+		if (columns == null) return RUN;
+		int event_number = columns.size;
+		long edge_number = columns.estimateEdgeNumber();
+		int second_number = columns.getSecondNumber();
+		double cost = getCost(model, event_number, edge_number, second_number);
+
+		/*** Until the first full window is finished the rate is unknown and the default rate is assumed ***/
+		double rate = Math.log(DEFAULT_RATE);
+		if (run_time > 0 && finished_cost > Double.NEGATIVE_INFINITY) {
+			rate = finished_cost - Math.log(run_time);
+		}
+		/*** Budget minus backlog. The backlog is summed anew to avoid subtracting finished costs in logarithms. ***/
+		double allowed = Math.log(budget) + rate;
+		double backlog_cost = Double.NEGATIVE_INFINITY;
+		for (double pending : backlog.values()) backlog_cost = Partitioning.logSum(backlog_cost, pending);
+		allowed = (backlog_cost < allowed) ? allowed + Math.log1p(-Math.exp(backlog_cost - allowed)) : Double.NEGATIVE_INFINITY;
+		
+		int decision = RUN;
+		boolean degraded = !shares && !backlog.isEmpty() && cost > allowed;
+		if (degraded) {
+			degraded_windows++;
+			String message = "Window " + window.id + " with " + event_number + " events and estimated cost " + format(cost) +
+					" exceeds the remaining budget of " + format(allowed);
+			if (policy == COUNT_ONLY) {
+				// Counting is linear in the size of the graph
+				decision = COUNT;
+				cost = Math.log(event_number + edge_number);
+				message += ": count only.";
+			} else {
+				// The cost grows with the number of events, so search for the largest suffix that fits
+				int low = 0;
+				int high = (policy == TRUNCATE) ? event_number : 0;
+				while (low < high) {
+					int mid = (low + high + 1) / 2;
+					if (getCost(model, mid, edge_number * mid / event_number, second_number) <= allowed) {
+						low = mid;
+					} else {
+						high = mid - 1;
+				}}
+				// A window with less than two events has no results
+				if (low > 1) {
+					int shed = event_number - low;
+					window.keepLast(low);
+					shed_events += shed;
+					cost = getCost(model, low, edge_number * low / event_number, second_number);
+					message += ": truncated to the last " + low + " events, " + shed + " events shed.";
+				} else {
+					decision = DROP;
+					shed_events += event_number;
+					message += ": dropped, " + event_number + " events shed.";
+			}}
+			System.out.println(message);
+		}
+		/*** A dropped window is never pending ***/
+		if (decision != DROP) backlog.put(window.id, cost);
+		if (!degraded) full_windows.add(window.id);
+		return decision;
+	}
+
+	/** The results of the given window are done after the given milliseconds of run time */
+	public synchronized void finished (Window window, double milliseconds) {
+		Double cost = backlog.remove(window.id);
+		if (cost == null) return;
+		// Only a window that ran in full is measured against its estimate
+		if (full_windows.remove(window.id) && milliseconds > 0) {
+			finished_cost = Partitioning.logSum(finished_cost, cost);
+			run_time += milliseconds;
+		}
+	}
+
+	/** Summary of the degraded windows */
+	public synchronized String toString () {
+		return "Overload: " + degraded_windows + " windows degraded, " + shed_events + " events shed.";
+	}
+}
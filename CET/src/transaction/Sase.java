@@ -1,9 +1,12 @@
 package transaction;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Stack;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -19,13 +22,22 @@ public class Sase extends Transaction {
 		results = new ArrayList<String>();
 	}
 	
-	public void run () {
+	public void compute () {
 		
 		long start =  System.currentTimeMillis();
-		computeResults();
+		EventColumns columns = window.getColumns();
+		// The columns evaluate the default predicate only
+		if (columns != null && window.predicate == Predicate.DEFAULT) {
+			computeResults(columns);
+		} else {
+			computeResults();
+		}
 		long end =  System.currentTimeMillis();
 		long duration = end - start;
 		total_cpu.set(total_cpu.get() + duration);
+	}
+	
+	public void output () {
 		
 		int total_length = 0;
 		int max_length = 0;
@@ -37,8 +49,6 @@ public class Sase extends Transaction {
 		System.out.println("Window " + window.id + " has " + results.size() + 
 				" results of avg length " + total_length/results.size() + 
 				" and max length " + max_length);	
-		
-		transaction_number.countDown();
 	}
 	
 	public void computeResults() {
@@ -53,11 +63,7 @@ public class Sase extends Transaction {
 		
 		for (Event event: window.events) {
 			
-			if (!event.pointers.containsKey(window.id)) {
-				ArrayList<Event> new_pointers = new ArrayList<Event>();
-				event.pointers.put(window.id, new_pointers);
-			}
-			ArrayList<Event> pointers = event.pointers.get(window.id);
+			ArrayList<Event> pointers = event.getPointers(window.id);
 									
 			// Store pointers to its predecessors
 			if (event.sec == curr_sec) {
@@ -66,7 +72,7 @@ public class Sase extends Transaction {
 					
 					if (pointers == null) System.out.println("Pointers null");					
 					
-					if (!pointers.contains(last) && last.isCompatible(event)) {
+					if (!pointers.contains(last) && window.predicate.isCompatible(last, event)) {
 						pointers.add(last);
 						pointerCount++;
 						oldLastEvents.add(last);
@@ -79,7 +85,7 @@ public class Sase extends Transaction {
 				oldLastEvents.clear();
 				newLastEvents.clear();
 				for (Event last : lastEvents) {
-					if (!pointers.contains(last) && last.isCompatible(event)) {
+					if (!pointers.contains(last) && window.predicate.isCompatible(last, event)) {
 						pointers.add(last);
 						pointerCount++;
 						oldLastEvents.add(last);
@@ -103,13 +109,109 @@ public class Sase extends Transaction {
 		//if (total_mem.get() < memory) total_mem.getAndAdd(memory);
 	}
 	
+	/**
+	 * Same as computeResults() on the columns of the window.
+	 * Events are addressed by index and the pointers of event i are stored in predecessors from first[i] to first[i+1].
+	 */
+	public void computeResults (EventColumns columns) {
+		
+		int n = columns.size;
+		int[] first = new int[n+1];
+		int[] predecessors = new int[Math.max(n,16)];
+		int pointerCount = 0;
+		
+		// Last events, last events that got a successor and new last events of the current second
+		int[] lastEvents = new int[n];
+		int lastNumber = 0;
+		boolean[] old = new boolean[n];
+		int newFrom = 0;
+		int curr_sec = -1;
+		
+		for (int i=0; i<n; i++) {
+			
+			// Replace the old last events by the new ones when the second changes
+			if (columns.sec[i] != curr_sec) {
+				int k = 0;
+				for (int j=0; j<lastNumber; j++) {
+					if (!old[lastEvents[j]]) lastEvents[k++] = lastEvents[j];
+				}
+				lastNumber = k;
+				for (int j=newFrom; j<i; j++) lastEvents[lastNumber++] = j;
+				newFrom = i;
+				curr_sec = columns.sec[i];
+			}
+			// Store pointers to its predecessors
+			first[i] = pointerCount;
+			for (int j=0; j<lastNumber; j++) {
+				int last = lastEvents[j];
+				if (columns.isCompatible(last, i)) {
+					if (pointerCount == predecessors.length) predecessors = Arrays.copyOf(predecessors, 2*pointerCount);
+					predecessors[pointerCount++] = last;
+					old[last] = true;
+			}}
+		}
+		first[n] = pointerCount;
+		
+		// For each new last event, traverse the pointers to extract CETs
+		int k = 0;
+		for (int j=0; j<lastNumber; j++) {
+			if (!old[lastEvents[j]]) lastEvents[k++] = lastEvents[j];
+		}
+		lastNumber = k;
+		for (int j=newFrom; j<n; j++) lastEvents[lastNumber++] = j;
+		
+		int maxSeqLength = 0;
+		if (canFork() && lastNumber > 1) {
+			// In a fork join pool the traversals from the last events are forked
+			final EventColumns c = columns;
+			final int[] f = first;
+			final int[] p = predecessors;
+			ArrayList<RecursiveTask<Integer>> tasks = new ArrayList<RecursiveTask<Integer>>();
+			for (int j=0; j<lastNumber; j++) {
+				final int last = lastEvents[j];
+				tasks.add(new RecursiveTask<Integer>() {
+					protected Integer compute () { return traversePointers(c, f, p, last, new int[c.size], 0, 0); }
+				});
+			}
+			for (RecursiveTask<Integer> task : ForkJoinTask.invokeAll(tasks)) {
+				maxSeqLength = Math.max(maxSeqLength, task.join());
+			}
+		} else {
+		int[] current_sequence = new int[n];
+		for (int j=0; j<lastNumber; j++) {
+			maxSeqLength = traversePointers(columns, first, predecessors, lastEvents[j], current_sequence, 0, maxSeqLength);
+		}}
+		int memory = n + pointerCount + maxSeqLength;
+		total_mem.set(total_mem.get() + memory);
+	}
+	
+	// DFS over the pointers in the columns
+	int traversePointers (EventColumns columns, int[] first, int[] predecessors, int event, int[] current_sequence, int length, int maxSeqLength) {
+		
+		current_sequence[length++] = event;
+		
+		/*** Base case: We hit the end of the graph. Output the current CET. ***/
+		if (first[event] == first[event+1]) {
+			StringBuilder result = new StringBuilder();
+			for (int i=0; i<length; i++) result.append(columns.id[current_sequence[i]]).append(';');
+			if (maxSeqLength < length) maxSeqLength = length;
+			synchronized (results) { results.add(result.toString()); }
+		} else {
+		/*** Recursive case: Traverse the following nodes. ***/
+			for (int p=first[event]; p<first[event+1]; p++) {
+				maxSeqLength = traversePointers(columns, first, predecessors, predecessors[p], current_sequence, length, maxSeqLength);
+			}
+		}
+		return maxSeqLength;
+	}
+	
 	// DFS in the stack
 	public int traversePointers (Event event, Stack<Event> current_sequence, int maxSeqLength) {       
 			
 		current_sequence.push(event);
 		//System.out.println("pushed " + event.id);
 		
-		ArrayList<Event> pointers = event.pointers.get(window.id);
+		ArrayList<Event> pointers = event.getPointers(window.id);
 	        
 		/*** Base case: We hit the end of the graph. Output the current CET. ***/
 	    if (pointers.isEmpty()) {   
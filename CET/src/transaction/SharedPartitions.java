@@ -1,28 +1,56 @@
 package transaction;
 
 import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import graph.*;
 
 public class SharedPartitions {
 
 	// Event trends per shared partition
 	public HashMap<String,Partition> contents;
-				
-	public SharedPartitions () {		
+	// A lock instead of the monitor of this object, so that a waiting virtual thread releases its carrier thread
+	final ReentrantLock lock;
+	final Condition added;
+
+	public SharedPartitions () {
 		contents = new HashMap<String,Partition>();
+		lock = new ReentrantLock();
+		added = lock.newCondition();
 	}
-	
-	public synchronized void add (String partition_id, Partition partition) {		
-		contents.put(partition_id, partition);		
-		notifyAll();		
+
+	public void add (String partition_id, Partition partition) {
+		lock.lock();
+		try {
+			contents.put(partition_id, partition);
+			added.signalAll();
+		} finally { lock.unlock(); }
 	}
 
-	public synchronized Partition get (String partition_id) {		
-		try {			
-			while (!contents.containsKey(partition_id)) {				
-				wait(); 						
-			}	
-		} catch (InterruptedException e) { e.printStackTrace(); }
-		return contents.get(partition_id);		
+	public Partition get (final String partition_id) {
+		Partition result = null;
+		lock.lock();
+		try {
+			if (!contents.containsKey(partition_id) && ForkJoinTask.inForkJoinPool()) {
+				// Let the fork join pool add a worker while this one waits for the partition of another window
+				ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+					public boolean block () throws InterruptedException {
+						while (!contents.containsKey(partition_id)) added.await();
+						return true;
+					}
+					public boolean isReleasable () {
+						return contents.containsKey(partition_id);
+					}
+				});
+			}
+			while (!contents.containsKey(partition_id)) {
+				added.await();
+			}
+			result = contents.get(partition_id);
+		} catch (InterruptedException e) { e.printStackTrace();
+		} finally { lock.unlock(); }
+		return result;
 	}
 }
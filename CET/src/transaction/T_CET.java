@@ -19,11 +19,10 @@ public class T_CET extends Transaction {
 		super(w,o,tn,time,mem);			
 	}
 	
-	public void run() {
-		
-		// Start timer and construct the graph
-		long start =  System.currentTimeMillis();
-		graph = Graph.constructGraph(window.events);
+	/*** Construct the graph, in key-partitioned mode the graph of each key is constructed and processed in the compute stage ***/
+	public void build () {
+		start_time =  System.currentTimeMillis();
+		if (!partition_by_key) graph = constructGraph();
 		
 		/*// Estimated CPU and memory costs
 		int vertex_number = batch.size();
@@ -34,18 +33,30 @@ public class T_CET extends Transaction {
 		double exp = vertex_number/new Double(3);
 		double estimated_mem = Math.pow(3, exp) * vertex_number;
 		System.out.println("CPU: " + estimated_cpu + " MEM: " + estimated_mem);*/		
+	}
+	
+	public void compute () {
 		
-		// Compute results
-		computeResults(graph.last_nodes,false,new ArrayList<EventTrend>());	
+		// Compute results, one graph per key in key-partitioned mode
+		if (partition_by_key) {
+			graph = processByKey();
+		} else {
+			computeResults(graph.last_nodes,false,new ArrayList<EventTrend>());
+		}
 		
 		// Stop timer
 		long end =  System.currentTimeMillis();
-		long duration = end - start;
+		long duration = end - start_time;
 		total_cpu.set(total_cpu.get() + duration);
-		
-		// Output results
+	}
+	
+	public void output () {
 		writeOutput2File();
-		transaction_number.countDown();
+	}
+	
+	int processGraph (Graph graph) {
+		computeResults(graph.last_nodes,false,new ArrayList<EventTrend>());
+		return 0;
 	}
 	
 	// BFS storing intermediate results in all nodes at the current level
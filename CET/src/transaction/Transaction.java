@@ -1,9 +1,15 @@
 package transaction;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import event.*;
+import graph.*;
 import iogenerator.*;
 
 public abstract class Transaction implements Runnable {
@@ -13,6 +19,18 @@ public abstract class Transaction implements Runnable {
 	public CountDownLatch transaction_number;	
 	AtomicLong total_cpu;
 	AtomicInteger total_mem;
+	// Injection-to-result latency of the windows, null if not measured
+	public LatencyMonitor latency;
+	// Backlog of the windows under overload control, null if windows are never degraded
+	public OverloadController overload;
+	// Key-partitioned mode: one graph per partition key, the graphs are constructed and processed in parallel
+	public boolean partition_by_key;
+	// Maximal trend length over the graphs of all keys
+	int max_length;
+	// Start of the CPU time of this transaction
+	long start_time;
+	// Nanoseconds spent in the stages of this transaction, without waiting between stages
+	long run_time;
 	
 	public Transaction (Window w, OutputFileGenerator o, CountDownLatch tn, AtomicLong time, AtomicInteger mem) {		
 		window = w;			
@@ -22,6 +40,109 @@ public abstract class Transaction implements Runnable {
 		total_mem = mem;
 	}	
 	
+	/*** 
+	 * Stages of a transaction: graph construction, planning, trend computation and output. 
+	 * In pipeline mode each stage runs on its own threads, otherwise one thread runs all stages.
+	 ***/
+	public static final String[] STAGES = { "build", "plan", "compute", "output" };
+	
+	public void build () {}
+	
+	public void plan () {}
+	
+	public abstract void compute ();
+	
+	public abstract void output ();
+	
+	/** Run the given stage */
+	public void runStage (int stage) {
+		long start = System.nanoTime();
+		if (stage == 0) build();
+		if (stage == 1) plan();
+		if (stage == 2) compute();
+		if (stage == 3) output();
+		run_time += System.nanoTime() - start;
+	}
+	
+	public void run () {
+		for (int stage=0; stage<STAGES.length; stage++) runStage(stage);
+		done();
+	}
+	
+	/** Whether this transaction runs in a fork join pool and can fork subtasks into it */
+	public static boolean canFork () {
+		return ForkJoinTask.inForkJoinPool();
+	}
+	
+	/** Record the latency of the window and count this transaction as done */
+	public void done () {
+		if (latency != null) latency.record(window);
+		if (overload != null) overload.finished(window, run_time / 1000000.0);
+		window.dropColumns();
+		transaction_number.countDown();
+	}
+	
+	/** Graph of the window, constructed while the window was filling in eager mode */
+	Graph constructGraph () {
+		if (window.builder != null) {
+			// The window keeps no reference to the graph, which is released with the transaction
+			Graph graph = window.builder.getGraph();
+			window.builder = null;
+			return graph;
+		}
+		return Graph.constructGraph(window.events, window.predicate);
+	}
+	
+	/** Events per partition key in time stamp order */
+	public static ArrayList<ArrayList<Event>> partitionByKey (List<Event> events) {
+		LinkedHashMap<Long,ArrayList<Event>> partitions = new LinkedHashMap<Long,ArrayList<Event>>();
+		for (Event event : events) {
+			long key = event.getPartitionKey();
+			ArrayList<Event> partition = partitions.get(key);
+			if (partition == null) {
+				partition = new ArrayList<Event>();
+				partitions.put(key, partition);
+			}
+			partition.add(event);
+		}
+		return new ArrayList<ArrayList<Event>>(partitions.values());
+	}
+	
+	/** Compute the results of the given graph of one key, return the maximal trend length if it is known */
+	int processGraph (Graph graph) {
+		return 0;
+	}
+	
+	/*** 
+	 * Key-partitioned mode: events with different keys are never connected, 
+	 * so the graph of each key is constructed and processed independently. 
+	 * The graphs run in parallel in the fork join pool of this transaction or in the common pool.
+	 * Return the union of the graphs. 
+	 ***/
+	Graph processByKey () {
+		ArrayList<ArrayList<Event>> partitions = partitionByKey(window.events);
+		ArrayList<RecursiveTask<Graph>> tasks = new ArrayList<RecursiveTask<Graph>>();
+		final int[] lengths = new int[partitions.size()];
+		for (int i=0; i<partitions.size(); i++) {
+			final int index = i;
+			final ArrayList<Event> events = partitions.get(i);
+			tasks.add(new RecursiveTask<Graph>() {
+				protected Graph compute () {
+					Graph graph = Graph.constructGraph(events, window.predicate);
+					lengths[index] = processGraph(graph);
+					return graph;
+				}
+			});
+		}
+		ArrayList<Graph> graphs = new ArrayList<Graph>();
+		for (RecursiveTask<Graph> task : ForkJoinTask.invokeAll(tasks)) {
+			graphs.add(task.join());
+		}
+		max_length = 0;
+		for (int length : lengths) max_length = Math.max(max_length, length);
+		return Graph.union(graphs);
+	}
+	
 	public int getEventNumber (String sequence) {
 		int number = 0;
 		for (int i=0; i<sequence.length(); i++) {